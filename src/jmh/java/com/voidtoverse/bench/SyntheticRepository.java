@@ -0,0 +1,156 @@
+package com.voidtoverse.bench;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Generates Git repositories of a given shape for the benchmarks.
+ *
+ * <p>Objects are written straight into the object database and the trees are
+ * built from an in-memory index, bypassing the porcelain commands. The working
+ * tree is left empty: scoring compares HEAD with the index only, and the
+ * history benchmarks never look at the checkout.</p>
+ */
+public final class SyntheticRepository {
+    private static final String[] AUTHORS = {"alice", "bob", "carol", "dave"};
+
+    private SyntheticRepository() {}
+
+    /**
+     * Create a repository.
+     *
+     * @param dir an empty directory to initialise
+     * @param files number of files in the tree
+     * @param blobLines lines per file
+     * @param historyDepth number of commits; each modifies one file
+     * @param stagedFiles number of files modified in the index on top of HEAD
+     * @return the repository directory
+     * @throws IOException if the repository cannot be written
+     */
+    public static File create(Path dir, int files, int blobLines, int historyDepth, int stagedFiles)
+            throws IOException {
+        try (Git git = Git.init().setDirectory(dir.toFile()).setInitialBranch("master").call();
+             ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            Repository repository = git.getRepository();
+            DirCache tree = DirCache.newInCore();
+            DirCacheBuilder builder = tree.builder();
+            for (int f = 0; f < files; f++) {
+                DirCacheEntry entry = new DirCacheEntry(path(f));
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, content(f, blobLines, 0)));
+                builder.add(entry);
+            }
+            builder.finish();
+
+            ObjectId head = null;
+            long time = System.currentTimeMillis() - historyDepth * 60_000L;
+            for (int c = 0; c < Math.max(1, historyDepth); c++) {
+                if (c > 0) {
+                    int f = c % files;
+                    edit(tree, f, inserter.insert(Constants.OBJ_BLOB, content(f, blobLines, c)));
+                }
+                CommitBuilder commit = new CommitBuilder();
+                commit.setTreeId(tree.writeTree(inserter));
+                if (head != null) {
+                    commit.setParentId(head);
+                }
+                String author = AUTHORS[c % AUTHORS.length];
+                PersonIdent ident = new PersonIdent(author, author + "@example.com",
+                        Instant.ofEpochMilli(time + c * 60_000L), ZoneOffset.UTC);
+                commit.setAuthor(ident);
+                commit.setCommitter(ident);
+                commit.setMessage("Change " + c + "\n");
+                head = inserter.insert(commit);
+            }
+
+            for (int f = 0; f < Math.min(stagedFiles, files); f++) {
+                edit(tree, f, inserter.insert(Constants.OBJ_BLOB, content(f, blobLines, historyDepth + 1)));
+            }
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(Constants.R_HEADS + "master");
+            update.setNewObjectId(head);
+            update.forceUpdate();
+
+            DirCache index = repository.lockDirCache();
+            try {
+                DirCacheBuilder staged = index.builder();
+                for (int i = 0; i < tree.getEntryCount(); i++) {
+                    staged.add(tree.getEntry(i));
+                }
+                staged.finish();
+                index.write();
+                index.commit();
+            } finally {
+                index.unlock();
+            }
+        } catch (GitAPIException e) {
+            throw new IOException(e);
+        }
+        return dir.toFile();
+    }
+
+    /**
+     * Delete a generated repository.
+     *
+     * @param dir the directory passed to {@link #create}
+     */
+    public static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            // leave the temporary directory behind
+        }
+    }
+
+    private static String path(int file) {
+        return "src/dir" + (file % 16) + "/File" + file + ".java";
+    }
+
+    private static void edit(DirCache tree, int file, ObjectId blob) {
+        DirCacheEditor editor = tree.editor();
+        editor.add(new DirCacheEditor.PathEdit(path(file)) {
+            @Override
+            public void apply(DirCacheEntry entry) {
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setObjectId(blob);
+            }
+        });
+        editor.finish();
+    }
+
+    /**
+     * Text of a file at a revision. Each revision rewrites a different tenth of
+     * the lines, so the size of a diff grows with the size of the blob.
+     */
+    private static byte[] content(int file, int lines, int revision) {
+        StringBuilder sb = new StringBuilder(lines * 32);
+        for (int i = 0; i < lines; i++) {
+            int version = i % 10 == revision % 10 ? revision : 0;
+            sb.append("file ").append(file).append(" line ").append(i).append(" v").append(version).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
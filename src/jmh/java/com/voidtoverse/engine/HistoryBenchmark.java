@@ -0,0 +1,98 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.bench.SyntheticRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks the history of a synthetic repository the way the history viewer does,
+ * through {@link CommitPager}: {@code firstPage} is the time until the window
+ * can show something, {@code fullWalk} pages through the whole log.
+ * {@code branchRange} scores the last {@value #BRANCH_COMMITS} commits as a
+ * branch with {@link BranchScorer}; after the first invocation the per-commit
+ * scores come from the score cache, so it mostly measures the walk and the
+ * cumulative tree diff.
+ *
+ * <p>{@code user.home} is pointed at a temporary directory before the score
+ * cache is first touched in the forked JVM, so the benchmark never reads or
+ * overwrites the real {@code ~/.gitgui/score-cache.bin}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryBenchmark {
+    private static final int BRANCH_COMMITS = 200;
+
+    @Param({"1000", "10000"})
+    public int historyDepth;
+
+    @Param({"200"})
+    public int files;
+
+    private Path home;
+    private Path dir;
+    private File repo;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        home = Files.createTempDirectory("gcq-home");
+        System.setProperty("user.home", home.toString());
+        dir = Files.createTempDirectory("gcq-bench");
+        repo = SyntheticRepository.create(dir, files, 20, historyDepth, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() {
+        RepositoryPool.clear();
+        SyntheticRepository.delete(dir);
+        SyntheticRepository.delete(home);
+    }
+
+    @Benchmark
+    public List<CommitPager.Row> firstPage() throws IOException, InterruptedException, ExecutionException {
+        try (CommitPager pager = new CommitPager(repo)) {
+            return pager.loadPage(0).get();
+        }
+    }
+
+    @Benchmark
+    public int fullWalk() throws IOException, InterruptedException, ExecutionException {
+        int commits = 0;
+        try (CommitPager pager = new CommitPager(repo)) {
+            for (int page = 0; ; page++) {
+                int rows = pager.loadPage(page).get().size();
+                commits += rows;
+                if (rows < CommitPager.PAGE_SIZE) {
+                    return commits;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int branchRange() throws IOException {
+        return BranchScorer.score(repo, "HEAD~" + BRANCH_COMMITS, "HEAD", true, () -> false).cumulative().score();
+    }
+}
@@ -0,0 +1,86 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.bench.SyntheticRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores the staged changes of a synthetic repository.
+ *
+ * <p>{@code cold} empties the staged snapshot, the edit-count cache and the
+ * blob cache before every call and so measures the first refresh after a
+ * change; {@code warm} measures the repeated refreshes the watcher triggers
+ * when nothing in the index moved. The class lives in the engine package to
+ * reach those caches.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QualityEngineBenchmark {
+    @Param({"10", "500", "2000"})
+    public int stagedFiles;
+
+    @Param({"100", "5000"})
+    public int blobLines;
+
+    private Path dir;
+    private File repo;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        dir = Files.createTempDirectory("gcq-bench");
+        repo = SyntheticRepository.create(dir, stagedFiles, blobLines, 1, stagedFiles);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() {
+        RepositoryPool.clear();
+        SyntheticRepository.delete(dir);
+    }
+
+    /** Empties the engine's caches before each invocation of the benchmarks that use it. */
+    @State(Scope.Thread)
+    public static class EmptyCache {
+        @Setup(Level.Invocation)
+        public void clear() {
+            StagedSnapshot.clear();
+            EditCountCache.clear();
+            BlobCache.clear();
+        }
+    }
+
+    @Benchmark
+    public QualityEngine.Result cold(EmptyCache cache) {
+        return QualityEngine.calculateQuality(repo);
+    }
+
+    @Benchmark
+    public QualityEngine.Result warm() {
+        return QualityEngine.calculateQuality(repo);
+    }
+
+    @Benchmark
+    public QualityEngine.Estimate estimate() {
+        return QualityEngine.estimateQuality(repo, () -> false);
+    }
+}
@@ -0,0 +1,97 @@
+package com.voidtoverse.persistence;
+
+import com.voidtoverse.bench.SyntheticRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads and saves the settings handled by {@link Persistence}. Loads and saves
+ * only touch the in-memory copy; {@code saveAndFlush} measures the atomic
+ * write of the settings file.
+ *
+ * <p>{@code user.home} is pointed at a temporary directory before
+ * {@link Persistence} is first touched in the forked JVM, so the benchmark
+ * never reads or overwrites the real settings.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"10", "100"})
+    public int recentRepositories;
+
+    private Path home;
+    private List<String> recent;
+    private double x;
+
+    @Setup(Level.Trial)
+    public void createHome() throws IOException {
+        home = Files.createTempDirectory("gcq-home");
+        System.setProperty("user.home", home.toString());
+        recent = new ArrayList<>();
+        for (int i = 0; i < recentRepositories; i++) {
+            recent.add(home.resolve("workspace").resolve("repository-" + i).toString());
+        }
+        Persistence.saveRecentRepositories(recent);
+        Persistence.saveLastRepository(recent.get(0));
+        Persistence.saveWindowLayout(100, 100, 800, 600);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHome() {
+        SyntheticRepository.delete(home);
+    }
+
+    @Benchmark
+    public List<String> loadRecent() {
+        return Persistence.loadRecentRepositories();
+    }
+
+    @Benchmark
+    public void saveRecent() {
+        Persistence.saveRecentRepositories(recent);
+    }
+
+    @Benchmark
+    public String loadLastRepository() {
+        return Persistence.loadLastRepository();
+    }
+
+    @Benchmark
+    public double[] loadWindowLayout() {
+        return Persistence.loadWindowLayout();
+    }
+
+    @Benchmark
+    public void saveWindowLayout() {
+        // a new position each time, as while dragging the window
+        Persistence.saveWindowLayout(x++, 100, 800, 600);
+    }
+
+    @Benchmark
+    public void saveAndFlush() {
+        Persistence.saveWindowLayout(x++, 100, 800, 600);
+        Persistence.flush();
+    }
+}
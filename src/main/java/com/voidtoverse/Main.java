@@ -1,8 +1,13 @@
 package com.voidtoverse;
 
+import com.voidtoverse.diagnostics.Metrics;
 import com.voidtoverse.ui.CommitQualityFrame;
+import com.voidtoverse.ui.FirstFrame;
+import com.voidtoverse.engine.RepositoryPool;
+import com.voidtoverse.engine.ScoringService;
 import com.voidtoverse.persistence.Persistence;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import javafx.geometry.Rectangle2D;
 import javafx.stage.Screen;
@@ -15,8 +20,20 @@ import javafx.stage.Screen;
  * into our helper class to build the window and show it. Keeping the UI
  * initialization in a separate class improves readability and makes the main
  * entry point easier to follow.</p>
+ *
+ * <p>The time from process start to the first rendered frame is recorded in
+ * {@link Metrics#FIRST_FRAME}. Launched with {@code --measure-startup} the
+ * application prints that time and exits once JGit has been loaded, which is
+ * how {@code gradle measureStartup} checks it and {@code gradle appCdsArchive}
+ * records the classes of a typical launch. With {@code --measure-startup=MILLIS}
+ * the exit status is 1 when the first frame took longer than {@code MILLIS}.</p>
  */
 public class Main extends Application {
+    private static final String MEASURE_STARTUP = "--measure-startup";
+
+    // fallback for platforms that do not report the process start time
+    private static final long CLASS_INIT_MILLIS = System.currentTimeMillis();
+
     @Override
     public void start(Stage stage) {
         // Attempt to restore the last opened repository
@@ -51,16 +68,52 @@ public class Main extends Application {
         }
 
         stage.show();
+        FirstFrame.afterNextFrame(this::firstFrameShown);
+
+        // Remember the window layout whenever it changes so that it can be restored on next launch.
+        // Saving only updates the in-memory settings; the file is written once the window settles.
+        javafx.beans.InvalidationListener saveLayout = obs ->
+                Persistence.saveWindowLayout(stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight());
+        stage.xProperty().addListener(saveLayout);
+        stage.yProperty().addListener(saveLayout);
+        stage.widthProperty().addListener(saveLayout);
+        stage.heightProperty().addListener(saveLayout);
+    }
 
-        // Persist the window layout whenever it changes so that it can be restored on next launch
-        stage.xProperty().addListener((obs, oldVal, newVal) ->
-                Persistence.saveWindowLayout(stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight()));
-        stage.yProperty().addListener((obs, oldVal, newVal) ->
-                Persistence.saveWindowLayout(stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight()));
-        stage.widthProperty().addListener((obs, oldVal, newVal) ->
-                Persistence.saveWindowLayout(stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight()));
-        stage.heightProperty().addListener((obs, oldVal, newVal) ->
-                Persistence.saveWindowLayout(stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight()));
+    /**
+     * Record the time to first frame and, when measuring, report it and exit.
+     */
+    private void firstFrameShown() {
+        long startMillis = ProcessHandle.current().info().startInstant()
+                .map(java.time.Instant::toEpochMilli).orElse(CLASS_INIT_MILLIS);
+        long millis = System.currentTimeMillis() - startMillis;
+        Metrics.FIRST_FRAME.record(millis * 1000);
+        for (String arg : getParameters().getRaw()) {
+            if (arg.equals(MEASURE_STARTUP) || arg.startsWith(MEASURE_STARTUP + "=")) {
+                System.out.println("First frame after " + millis + " ms");
+                long target = arg.equals(MEASURE_STARTUP) ? Long.MAX_VALUE
+                        : Long.parseLong(arg.substring(MEASURE_STARTUP.length() + 1));
+                // wait for JGit to load so that an archive recorded from this run includes it
+                ScoringService.warmUp().whenComplete((ignored, e) -> Platform.runLater(() -> {
+                    if (millis > target) {
+                        System.err.println("First frame exceeded the target of " + target + " ms");
+                        System.exit(1);
+                    }
+                    Platform.exit();
+                }));
+            }
+        }
+    }
+
+    /**
+     * Stop the working tree watcher, release the repositories kept warm by
+     * {@link RepositoryPool} and write pending settings when the application exits.
+     */
+    @Override
+    public void stop() {
+        CommitQualityFrame.dispose();
+        RepositoryPool.clear();
+        Persistence.flush();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,246 @@
+package com.voidtoverse.cli;
+
+import com.voidtoverse.diagnostics.Metrics;
+import com.voidtoverse.engine.BranchScorer;
+import com.voidtoverse.engine.BranchScorer.RangeScore;
+import com.voidtoverse.engine.HistoryAnalyzer.CommitScore;
+import com.voidtoverse.engine.QualityDescriptor;
+import com.voidtoverse.engine.QualityEngine;
+import com.voidtoverse.engine.QualityEngine.Result;
+import com.voidtoverse.engine.RepositoryPool;
+import com.voidtoverse.engine.ScoringRules;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Headless entry point scoring the staged changes of a repository.
+ *
+ * <p>Intended for Git hooks and CI pipelines, so it deliberately touches only
+ * the engine and diagnostics packages and never loads {@code javafx.*} classes. The
+ * score, emoji and message from {@link QualityDescriptor} are printed as text or
+ * JSON, and the process exits with status 1 when the quality is below the
+ * requested threshold, or with status 3 when the directory is not a
+ * repository with a working tree. Messages matching the project's exemption
+ * keywords (see {@link ScoringRules}) pass with a perfect rating, the same as
+ * in the GUI.</p>
+ *
+ * <pre>
+ * usage: QualityCli [--repo DIR] [--threshold N] [--message TEXT | --message-file FILE] [--json] [--timing]
+ *                   [--metrics FILE] [--branch | --base REV]
+ * </pre>
+ *
+ * <p>{@code --branch} scores the commits of {@code HEAD} that are not on
+ * {@code main} (or {@code master}) instead of the staged changes, and
+ * {@code --base} names another base; see {@link BranchScorer}. Every commit is
+ * printed with its quality, followed by the branch as a whole, and the
+ * threshold applies to each commit. A commit whose message matches the
+ * exemption keywords passes with a perfect rating.</p>
+ *
+ * <p>As a {@code commit-msg} hook pass {@code --message-file "$1"} so that the
+ * exemption keywords are honoured. {@code --timing} reports JVM startup and
+ * scoring latency on stderr and {@code --metrics} writes the
+ * engine's {@link Metrics} to a file (Prometheus text for {@code .prom}, JSON
+ * otherwise) for CI dashboards; see the {@code cliJar} and {@code cliCdsArchive}
+ * tasks in {@code build.gradle} for a trimmed classpath and class-data archive
+ * that keep startup low.</p>
+ */
+public final class QualityCli {
+    /** Exit status when the quality is at or above the threshold. */
+    static final int EXIT_OK = 0;
+
+    /** Exit status when the quality is below the threshold. */
+    static final int EXIT_BELOW_THRESHOLD = 1;
+
+    /** Exit status for invalid arguments or an unreadable message file. */
+    static final int EXIT_USAGE = 2;
+
+    /** Exit status when the repository is missing, cannot be opened or has no working tree. */
+    static final int EXIT_NO_REPOSITORY = 3;
+
+    // hooks run with whatever locale the user has; always emit UTF-8 so the emoji survive
+    private static final PrintStream OUT = new PrintStream(new FileOutputStream(FileDescriptor.out), true,
+            StandardCharsets.UTF_8);
+
+    private static final String USAGE =
+            "usage: QualityCli [--repo DIR] [--threshold N] [--message TEXT | --message-file FILE] [--json] [--timing]"
+            + " [--metrics FILE] [--branch | --base REV]";
+
+    private QualityCli() {}
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Parse the arguments, score the repository and print the outcome.
+     *
+     * @param args command line arguments
+     * @return the process exit status
+     */
+    static int run(String[] args) {
+        long started = System.nanoTime();
+        File repo = new File(".");
+        int threshold = 0;
+        String message = null;
+        boolean json = false;
+        boolean timing = false;
+        String metrics = null;
+        boolean branch = false;
+        String base = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--repo" -> repo = new File(args[++i]);
+                    case "--threshold" -> threshold = Integer.parseInt(args[++i]);
+                    case "--message" -> message = args[++i];
+                    case "--message-file" -> message = Files.readString(Paths.get(args[++i]), StandardCharsets.UTF_8);
+                    case "--json" -> json = true;
+                    case "--timing" -> timing = true;
+                    case "--metrics" -> metrics = args[++i];
+                    case "--branch" -> branch = true;
+                    case "--base" -> {
+                        base = args[++i];
+                        branch = true;
+                    }
+                    default -> {
+                        System.err.println(USAGE);
+                        return EXIT_USAGE;
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException | IOException e) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        boolean passed;
+        if (branch) {
+            try {
+                passed = printBranch(BranchScorer.score(repo, base, "HEAD", true, () -> false),
+                        ScoringRules.forRepository(repo), threshold, json);
+            } catch (IllegalArgumentException | IOException e) {
+                System.err.println("Cannot score branch: " + e.getMessage());
+                return EXIT_USAGE;
+            }
+        } else {
+            try {
+                RepositoryPool.requireWorkTree(repo);
+            } catch (IOException e) {
+                System.err.println("Cannot open repository " + repo + ": " + e.getMessage());
+                return EXIT_NO_REPOSITORY;
+            }
+            passed = printStaged(repo, message, threshold, json);
+        }
+        if (timing) {
+            // ProcessHandle avoids loading java.management just to learn the JVM start time
+            long sinceStart = ProcessHandle.current().info().startInstant()
+                    .map(t -> System.currentTimeMillis() - t.toEpochMilli()).orElse(-1L);
+            System.err.println("timing: scoring " + (System.nanoTime() - started) / 1_000_000
+                    + " ms, since JVM start " + sinceStart + " ms");
+        }
+        if (metrics != null) {
+            try {
+                Metrics.export(Paths.get(metrics));
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + metrics + ": " + e.getMessage());
+            }
+        }
+        return passed ? EXIT_OK : EXIT_BELOW_THRESHOLD;
+    }
+
+    /**
+     * Score and print the staged changes.
+     *
+     * @return whether the quality reaches the threshold
+     */
+    private static boolean printStaged(File repo, String message, int threshold, boolean json) {
+        boolean exempt = ScoringRules.forRepository(repo).isExempt(message);
+        long fallbacks = Metrics.RENAME_FALLBACKS.get();
+        Result result = QualityEngine.calculateQuality(repo);
+        if (Metrics.RENAME_FALLBACKS.get() > fallbacks) {
+            // stderr, so hooks parsing the JSON on stdout are unaffected
+            System.err.println("note: too many added and deleted files to look for renames;"
+                    + " moved files are scored as added and deleted");
+        }
+        int quality = exempt ? 100 : result.quality();
+        String[] desc = QualityDescriptor.describe(quality);
+        boolean passed = quality >= threshold;
+
+        if (json) {
+            OUT.println("{\"quality\":" + quality
+                    + ",\"score\":" + result.score()
+                    + ",\"emoji\":\"" + desc[0] + "\""
+                    + ",\"message\":\"" + escape(desc[1]) + "\""
+                    + ",\"exempt\":" + exempt
+                    + ",\"threshold\":" + threshold
+                    + ",\"passed\":" + passed + "}");
+        } else {
+            OUT.println(desc[0] + " Commit Quality: " + quality + "% — \"" + desc[1] + "\" (score " + result.score() + ")");
+            if (!passed) {
+                OUT.println("Quality " + quality + "% is below the threshold of " + threshold + "%.");
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Print the scores of a branch.
+     *
+     * @return whether every commit that is not exempt reaches the threshold
+     */
+    private static boolean printBranch(RangeScore range, ScoringRules rules, int threshold, boolean json) {
+        int failing = 0;
+        StringBuilder commits = new StringBuilder();
+        for (int i = 0; i < range.commits().size(); i++) {
+            CommitScore commit = range.commits().get(i);
+            boolean exempt = rules.isExempt(range.messages().get(i));
+            int quality = exempt ? 100 : commit.quality();
+            if (quality < threshold) {
+                failing++;
+            }
+            if (json) {
+                commits.append(commits.length() == 0 ? "" : ",")
+                        .append("{\"id\":\"").append(commit.id().name())
+                        .append("\",\"quality\":").append(quality)
+                        .append(",\"score\":").append(commit.score())
+                        .append(",\"exempt\":").append(exempt).append('}');
+            } else {
+                OUT.println(QualityDescriptor.describe(quality)[0] + " " + commit.id().abbreviate(7).name()
+                        + " " + quality + "% (score " + commit.score() + (exempt ? ", exempt" : "") + ")");
+            }
+        }
+        CommitScore total = range.cumulative();
+        String[] desc = QualityDescriptor.describe(total.quality());
+        String mergeBase = range.mergeBase() == null ? null : range.mergeBase().name();
+        if (json) {
+            OUT.println("{\"mergeBase\":" + (mergeBase == null ? "null" : "\"" + mergeBase + "\"")
+                    + ",\"commits\":[" + commits + "]"
+                    + ",\"quality\":" + total.quality()
+                    + ",\"score\":" + total.score()
+                    + ",\"emoji\":\"" + desc[0] + "\""
+                    + ",\"message\":\"" + escape(desc[1]) + "\""
+                    + ",\"threshold\":" + threshold
+                    + ",\"passed\":" + (failing == 0) + "}");
+        } else {
+            OUT.println(desc[0] + " Branch Quality: " + total.quality() + "% — \"" + desc[1] + "\" (score "
+                    + total.score() + ", " + range.commits().size() + " commits since "
+                    + (mergeBase == null ? "the root" : mergeBase.substring(0, 7)) + ")");
+            if (failing > 0) {
+                OUT.println(failing + " commits are below the threshold of " + threshold + "%.");
+            }
+        }
+        return failing == 0;
+    }
+
+    /** Escape the characters JSON strings cannot contain verbatim. */
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,311 @@
+package com.voidtoverse.cli;
+
+import com.voidtoverse.engine.FileBreakdown;
+import com.voidtoverse.engine.HistoryAnalyzer;
+import com.voidtoverse.engine.QualityDescriptor;
+import com.voidtoverse.engine.QualityEngine;
+import com.voidtoverse.engine.QualityEngine.Result;
+import com.voidtoverse.engine.RepositoryExecutor;
+import com.voidtoverse.engine.RepositoryPool;
+import com.voidtoverse.engine.ScoringRules;
+import com.voidtoverse.persistence.Json;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running scoring process that serves requests over a Unix domain socket.
+ *
+ * <p>A hook that starts {@link QualityCli} pays for JVM startup, class loading
+ * and opening the repository on every commit. The daemon pays for them once:
+ * repositories stay open in the engine's pool, edit counts and staged
+ * snapshots stay cached, and the JIT has long compiled the diff loops. Parallel
+ * {@code git commit}s on a build machine all talk to the same process.</p>
+ *
+ * <p>The protocol is one JSON object per line in each direction, so a hook
+ * needs nothing more than {@code nc -U}:</p>
+ *
+ * <pre>
+ * {"op":"score","repo":"/path/to/repo","message":"optional commit message"}
+ * {"op":"breakdown","repo":"/path/to/repo"}
+ * {"op":"history","repo":"/path/to/repo","limit":100,"skipMerges":true}
+ * {"op":"ping"}
+ * </pre>
+ *
+ * <p>A failed request is answered with {@code {"error":"..."}} and the
+ * connection stays usable. Scoring a directory that is not a repository with
+ * a working tree is such a failure, never a perfect score. Each connection is served by its own virtual
+ * thread, so thousands of idle hook connections cost next to nothing, and
+ * scoring requests for the same repository are handled one at a time through
+ * {@link RepositoryExecutor#callExclusive}, so a burst of hooks for one
+ * repository diffs the index once and the rest are answered from the engine's
+ * caches. History requests only read committed objects; they run outside that
+ * lock so a long walk never holds up a commit hook, and their limit is capped
+ * at {@value #MAX_HISTORY_LIMIT}.</p>
+ *
+ * <p>The socket directory is created readable by its owner only before the
+ * socket is bound, and the default {@code ~/.gitgui} is tightened to that if
+ * it already exists, so no other local user can reach the socket in the
+ * moment before its own permissions are set.</p>
+ *
+ * <pre>
+ * usage: ScoringDaemon [--socket PATH]
+ * </pre>
+ */
+public final class ScoringDaemon implements Closeable {
+    /** Socket used when {@code --socket} is not given. */
+    public static final Path DEFAULT_SOCKET = Paths.get(System.getProperty("user.home"), ".gitgui", "daemon.sock");
+
+    /** History entries returned when a request sets no limit. */
+    static final int DEFAULT_HISTORY_LIMIT = 100;
+
+    /** Most history entries a single request may ask for. */
+    static final int MAX_HISTORY_LIMIT = 10_000;
+
+    private static final String USAGE = "usage: ScoringDaemon [--socket PATH]";
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final ExecutorService connections;
+
+    /**
+     * Bind the socket. A socket file left behind by a daemon that is no longer
+     * running is replaced; a live one is not.
+     *
+     * @param socket the socket file to create
+     * @throws IOException if the socket cannot be bound or another daemon is listening on it
+     */
+    public ScoringDaemon(Path socket) throws IOException {
+        this.socket = socket;
+        createPrivateDirectory(socket.toAbsolutePath().getParent());
+        if (Files.exists(socket)) {
+            if (isListening(socket)) {
+                throw new IOException("A daemon is already listening on " + socket);
+            }
+            // nobody answers: a stale socket from a daemon that was killed
+            Files.delete(socket);
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        try {
+            // the daemon reads any repository its user can, so nobody else may talk to it
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system; rely on the directory's permissions
+        }
+        connections = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scoring-daemon-", 0).factory());
+    }
+
+    public static void main(String[] args) {
+        Path socket = DEFAULT_SOCKET;
+        for (int i = 0; i < args.length; i++) {
+            if ("--socket".equals(args[i]) && i + 1 < args.length) {
+                socket = Paths.get(args[++i]);
+            } else {
+                System.err.println(USAGE);
+                System.exit(QualityCli.EXIT_USAGE);
+            }
+        }
+        try (ScoringDaemon daemon = new ScoringDaemon(socket)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "scoring-daemon-shutdown"));
+            System.err.println("Listening on " + socket);
+            daemon.serve();
+        } catch (IOException e) {
+            System.err.println("Cannot start daemon: " + e.getMessage());
+            System.exit(QualityCli.EXIT_USAGE);
+        }
+    }
+
+    /**
+     * Accept connections until the daemon is closed.
+     */
+    public void serve() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> converse(channel));
+            } catch (IOException e) {
+                // closed while waiting, or a connection that failed to establish
+            }
+        }
+    }
+
+    /**
+     * Stop accepting connections and remove the socket file. Connections in
+     * progress finish their current request.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            // the socket file is replaced on the next start anyway
+        }
+        connections.shutdown();
+    }
+
+    /** Create the socket's directory, or tighten the default one, so only the owner can enter it. */
+    private static void createPrivateDirectory(Path dir) throws IOException {
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        try {
+            if (!Files.exists(dir)) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(ownerOnly));
+            } else if (dir.equals(DEFAULT_SOCKET.getParent())) {
+                Files.setPosixFilePermissions(dir, ownerOnly);
+            }
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system; rely on the platform's defaults
+            Files.createDirectories(dir);
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Answer requests on one connection until the client hangs up. */
+    private void converse(SocketChannel channel) {
+        try (channel;
+             BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away mid-request
+        }
+    }
+
+    /**
+     * Answer one request.
+     *
+     * @param line the request, a JSON object
+     * @return the response, a JSON object without a trailing newline
+     */
+    String handle(String line) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            if (!(Json.parse(line) instanceof Map<?, ?> request)) {
+                throw new IllegalArgumentException("request must be a JSON object");
+            }
+            String op = String.valueOf(request.get("op"));
+            if ("ping".equals(op)) {
+                response.put("ok", true);
+                return Json.write(response);
+            }
+            if (!(request.get("repo") instanceof String path)) {
+                throw new IllegalArgumentException("missing repo");
+            }
+            File repo = new File(path).getAbsoluteFile();
+            if (!repo.isDirectory()) {
+                throw new IllegalArgumentException("not a directory: " + path);
+            }
+            if ("history".equals(op)) {
+                // reads committed objects only, so it does not queue behind or hold up scoring
+                history(repo, request, response);
+                return Json.write(response);
+            }
+            // the engine would score a directory it cannot open as a perfect, empty change
+            RepositoryPool.requireWorkTree(repo);
+            // one request per repository at a time: later ones find the caches warm
+            RepositoryExecutor.callExclusive(repo, () -> {
+                switch (op) {
+                    case "score" -> score(repo, request.get("message"), response);
+                    case "breakdown" -> breakdown(repo, response);
+                    default -> throw new IllegalArgumentException("unknown op: " + op);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            response.clear();
+            response.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return Json.write(response);
+    }
+
+    private static void score(File repo, Object message, Map<String, Object> response) {
+        boolean exempt = message instanceof String text && ScoringRules.forRepository(repo).isExempt(text);
+        Result result = QualityEngine.calculateQuality(repo);
+        int quality = exempt ? 100 : result.quality();
+        String[] desc = QualityDescriptor.describe(quality);
+        response.put("quality", quality);
+        response.put("score", result.score());
+        response.put("emoji", desc[0]);
+        response.put("message", desc[1]);
+        response.put("exempt", exempt);
+    }
+
+    private static void breakdown(File repo, Map<String, Object> response) {
+        FileBreakdown breakdown = new FileBreakdown();
+        Result result = QualityEngine.calculateQuality(repo, () -> false, breakdown);
+        List<Object> files = new ArrayList<>();
+        for (int row : breakdown.rowsByContribution()) {
+            Map<String, Object> file = new LinkedHashMap<>();
+            file.put("path", breakdown.path(row));
+            file.put("change", breakdown.changeType(row).name());
+            file.put("insertions", breakdown.insertions(row));
+            file.put("deletions", breakdown.deletions(row));
+            file.put("score", breakdown.contributionMillis(row) / 1000.0);
+            files.add(file);
+        }
+        response.put("quality", result.quality());
+        response.put("score", result.score());
+        response.put("unpaired", breakdown.unpaired());
+        response.put("files", files);
+    }
+
+    private static void history(File repo, Map<?, ?> request, Map<String, Object> response) throws IOException {
+        int limit = request.get("limit") instanceof Number n
+                ? Math.max(0, Math.min(n.intValue(), MAX_HISTORY_LIMIT)) : DEFAULT_HISTORY_LIMIT;
+        boolean skipMerges = !Boolean.FALSE.equals(request.get("skipMerges"));
+        List<Object> commits = new ArrayList<>();
+        try {
+            HistoryAnalyzer.analyze(repo, skipMerges, score -> {
+                Map<String, Object> commit = new LinkedHashMap<>();
+                commit.put("id", score.id().name());
+                commit.put("author", score.author());
+                commit.put("time", score.commitTime());
+                commit.put("quality", score.quality());
+                commit.put("score", score.score());
+                commits.add(commit);
+            }, () -> commits.size() >= limit);
+        } catch (CancellationException e) {
+            // reached the limit
+        }
+        response.put("commits", commits);
+    }
+}
@@ -0,0 +1,166 @@
+package com.voidtoverse.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets.
+ *
+ * <p>Values are recorded in microseconds. Each power-of-two range is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so any reported percentile is within
+ * about 6% of the true value while the whole histogram is a single fixed array.
+ * Recording is a handful of atomic increments and never allocates, which keeps
+ * it cheap enough for the per-file paths of the scoring engine.</p>
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values up to 2^40 µs (about 12 days) are tracked; larger ones land in the last bucket
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final String name;
+    private final String help;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    /** @return the metric name, in Prometheus naming style */
+    public String name() {
+        return name;
+    }
+
+    /** @return a one-line description of what is measured */
+    public String help() {
+        return help;
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}.
+     *
+     * @param startNanos a value previously returned by {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    /**
+     * Record one value.
+     *
+     * @param micros the latency in microseconds; negative values count as zero
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /** @return the number of recorded values */
+    public long count() {
+        return count.get();
+    }
+
+    /** @return the sum of all recorded values in microseconds */
+    public long sumMicros() {
+        return sum.get();
+    }
+
+    /** @return the largest recorded value in microseconds */
+    public long maxMicros() {
+        return max.get();
+    }
+
+    /**
+     * Estimate a percentile from the buckets.
+     *
+     * @param percentile a value between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, in microseconds,
+     *         or 0 if nothing was recorded
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Return the cumulative count of values at or below each bound, for
+     * Prometheus-style {@code le} buckets.
+     *
+     * @param boundsMicros ascending upper bounds in microseconds
+     * @return cumulative counts, one per bound
+     */
+    public long[] cumulativeCounts(long[] boundsMicros) {
+        long[] counts = new long[boundsMicros.length];
+        long seen = 0;
+        int bound = 0;
+        for (int i = 0; i < BUCKET_COUNT && bound < boundsMicros.length; i++) {
+            while (bound < boundsMicros.length && bucketUpperBound(i) > boundsMicros[bound]) {
+                counts[bound++] = seen;
+            }
+            seen += buckets.get(i);
+        }
+        while (bound < boundsMicros.length) {
+            counts[bound++] = seen;
+        }
+        return counts;
+    }
+
+    /**
+     * Forget every recorded value. Not atomic with respect to concurrent
+     * recording, which is acceptable for a diagnostics reset.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} map to themselves; larger values map
+     * to one of {@value #SUB_BUCKETS} linear slots within their power of two.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Largest value that maps to the given bucket. */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
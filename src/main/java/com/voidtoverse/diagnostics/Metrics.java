@@ -0,0 +1,221 @@
+package com.voidtoverse.diagnostics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide timings and counters of the scoring engine and its JGit calls.
+ *
+ * <p>The set of metrics is fixed, so instrumented code records into static
+ * fields without any lookup:</p>
+ *
+ * <pre>{@code
+ * long start = System.nanoTime();
+ * ...
+ * Metrics.DIFF_LIST.recordSince(start);
+ * }</pre>
+ *
+ * <p>The diagnostics window shows a {@link #summary()}; {@link #export(Path)}
+ * writes the same data as JSON or, for files ending in {@code .prom} or
+ * {@code .txt}, in the Prometheus text exposition format so a node exporter's
+ * textfile collector can pick it up. Complete scoring runs are additionally
+ * emitted as {@link ScoringEvent} JFR events.</p>
+ */
+public final class Metrics {
+    /** Borrowing a repository from the pool, including opening it on a miss. */
+    public static final LatencyHistogram REPO_OPEN =
+            new LatencyHistogram("gcq_repo_open_micros", "Time to borrow a repository from the pool");
+    /** Listing the entries that differ between HEAD and the index. */
+    public static final LatencyHistogram DIFF_LIST =
+            new LatencyHistogram("gcq_diff_list_micros", "Time to list staged diff entries");
+    /** Diffing a single file whose counts were not cached. */
+    public static final LatencyHistogram FILE_EDITS =
+            new LatencyHistogram("gcq_file_edits_micros", "Time to compute the edit list of one file");
+    /** A complete exact scoring run. */
+    public static final LatencyHistogram SCORE_TOTAL =
+            new LatencyHistogram("gcq_score_total_micros", "Time to compute an exact quality score");
+    /** A line-count estimate. */
+    public static final LatencyHistogram ESTIMATE_TOTAL =
+            new LatencyHistogram("gcq_estimate_total_micros", "Time to compute a quality estimate");
+    /** Loading one page of the history viewer. */
+    public static final LatencyHistogram HISTORY_PAGE =
+            new LatencyHistogram("gcq_history_page_micros", "Time to load one page of history");
+    /** Staging and committing from the main window. */
+    public static final LatencyHistogram COMMIT =
+            new LatencyHistogram("gcq_commit_micros", "Time to stage and commit all changes");
+
+    /** Process start until the main window's first frame has been rendered; recorded once per launch. */
+    public static final LatencyHistogram FIRST_FRAME =
+            new LatencyHistogram("gcq_first_frame_micros", "Time from process start to the first rendered frame");
+
+    /** Repositories opened because the pool had no usable entry. */
+    public static final AtomicLong REPO_POOL_MISSES = new AtomicLong();
+    /** Files whose counts came from the edit-count cache. */
+    public static final AtomicLong EDIT_CACHE_HITS = new AtomicLong();
+    /** Scoring runs answered from the staged snapshot because the index and HEAD were unchanged. */
+    public static final AtomicLong SNAPSHOT_HITS = new AtomicLong();
+    /** Blobs served from the shared blob cache instead of the object store. */
+    public static final AtomicLong BLOB_CACHE_HITS = new AtomicLong();
+    /** Files too large for the formatter that were diffed by streaming instead. */
+    public static final AtomicLong LARGE_OBJECT_FALLBACKS = new AtomicLong();
+    /** Scoring runs whose rename detection exceeded its limit or time budget and left files unpaired. */
+    public static final AtomicLong RENAME_FALLBACKS = new AtomicLong();
+    /** Scoring runs that failed and reported a zero change. */
+    public static final AtomicLong SCORE_FAILURES = new AtomicLong();
+
+    private static final List<LatencyHistogram> HISTOGRAMS =
+            List.of(REPO_OPEN, DIFF_LIST, FILE_EDITS, SCORE_TOTAL, ESTIMATE_TOTAL, HISTORY_PAGE, COMMIT,
+                    FIRST_FRAME);
+
+    // Prometheus bucket bounds: 100 µs to 10 s
+    private static final long[] PROMETHEUS_BOUNDS =
+            {100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000};
+
+    private static volatile String lastFailure;
+
+    private Metrics() {}
+
+    /**
+     * Count a failed scoring run and remember why it failed.
+     *
+     * @param e the exception that was swallowed
+     */
+    public static void recordFailure(Exception e) {
+        SCORE_FAILURES.incrementAndGet();
+        lastFailure = e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    /**
+     * Clear every histogram and counter.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        REPO_POOL_MISSES.set(0);
+        EDIT_CACHE_HITS.set(0);
+        SNAPSHOT_HITS.set(0);
+        BLOB_CACHE_HITS.set(0);
+        LARGE_OBJECT_FALLBACKS.set(0);
+        RENAME_FALLBACKS.set(0);
+        SCORE_FAILURES.set(0);
+        lastFailure = null;
+    }
+
+    /**
+     * Render a human-readable table of all metrics.
+     *
+     * @return the summary text
+     */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-26s %8s %9s %9s %9s %9s%n", "timing (ms)", "count", "p50", "p90",
+                "p99", "max"));
+        for (LatencyHistogram h : HISTOGRAMS) {
+            sb.append(String.format(Locale.ROOT, "%-26s %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    h.name().replace("gcq_", "").replace("_micros", ""), h.count(), h.percentileMicros(50) / 1000.0,
+                    h.percentileMicros(90) / 1000.0, h.percentileMicros(99) / 1000.0, h.maxMicros() / 1000.0));
+        }
+        sb.append('\n');
+        sb.append("repository pool misses:    ").append(REPO_POOL_MISSES.get()).append('\n');
+        sb.append("edit-count cache hits:     ").append(EDIT_CACHE_HITS.get()).append('\n');
+        sb.append("staged snapshot hits:      ").append(SNAPSHOT_HITS.get()).append('\n');
+        sb.append("blob cache hits:           ").append(BLOB_CACHE_HITS.get()).append('\n');
+        sb.append("large-object fallbacks:    ").append(LARGE_OBJECT_FALLBACKS.get()).append('\n');
+        sb.append("rename fallbacks:          ").append(RENAME_FALLBACKS.get()).append('\n');
+        sb.append("scoring failures:          ").append(SCORE_FAILURES.get()).append('\n');
+        String failure = lastFailure;
+        if (failure != null) {
+            sb.append("last failure:              ").append(failure).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Render all metrics as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"histograms\": {");
+        for (int i = 0; i < HISTOGRAMS.size(); i++) {
+            LatencyHistogram h = HISTOGRAMS.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(h.name()).append("\": {\"count\": ").append(h.count())
+                    .append(", \"sum\": ").append(h.sumMicros())
+                    .append(", \"p50\": ").append(h.percentileMicros(50))
+                    .append(", \"p90\": ").append(h.percentileMicros(90))
+                    .append(", \"p99\": ").append(h.percentileMicros(99))
+                    .append(", \"p999\": ").append(h.percentileMicros(99.9))
+                    .append(", \"max\": ").append(h.maxMicros()).append('}');
+        }
+        sb.append("\n  },\n  \"counters\": {\n");
+        sb.append("    \"gcq_repo_pool_misses_total\": ").append(REPO_POOL_MISSES.get()).append(",\n");
+        sb.append("    \"gcq_edit_cache_hits_total\": ").append(EDIT_CACHE_HITS.get()).append(",\n");
+        sb.append("    \"gcq_snapshot_hits_total\": ").append(SNAPSHOT_HITS.get()).append(",\n");
+        sb.append("    \"gcq_blob_cache_hits_total\": ").append(BLOB_CACHE_HITS.get()).append(",\n");
+        sb.append("    \"gcq_large_object_fallbacks_total\": ").append(LARGE_OBJECT_FALLBACKS.get()).append(",\n");
+        sb.append("    \"gcq_rename_fallbacks_total\": ").append(RENAME_FALLBACKS.get()).append(",\n");
+        sb.append("    \"gcq_score_failures_total\": ").append(SCORE_FAILURES.get()).append('\n');
+        sb.append("  }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Render all metrics in the Prometheus text exposition format.
+     *
+     * @return the exposition text
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram h : HISTOGRAMS) {
+            sb.append("# HELP ").append(h.name()).append(' ').append(h.help()).append(" (microseconds)\n");
+            sb.append("# TYPE ").append(h.name()).append(" histogram\n");
+            long[] cumulative = h.cumulativeCounts(PROMETHEUS_BOUNDS);
+            for (int i = 0; i < PROMETHEUS_BOUNDS.length; i++) {
+                sb.append(h.name()).append("_bucket{le=\"").append(PROMETHEUS_BOUNDS[i]).append("\"} ")
+                        .append(cumulative[i]).append('\n');
+            }
+            sb.append(h.name()).append("_bucket{le=\"+Inf\"} ").append(h.count()).append('\n');
+            sb.append(h.name()).append("_sum ").append(h.sumMicros()).append('\n');
+            sb.append(h.name()).append("_count ").append(h.count()).append('\n');
+        }
+        appendCounter(sb, "gcq_repo_pool_misses_total", "Repositories opened on a pool miss", REPO_POOL_MISSES);
+        appendCounter(sb, "gcq_edit_cache_hits_total", "Files served from the edit-count cache", EDIT_CACHE_HITS);
+        appendCounter(sb, "gcq_snapshot_hits_total", "Scoring runs served from the staged snapshot", SNAPSHOT_HITS);
+        appendCounter(sb, "gcq_blob_cache_hits_total", "Blobs served from the shared blob cache", BLOB_CACHE_HITS);
+        appendCounter(sb, "gcq_large_object_fallbacks_total", "Files diffed by streaming after LargeObjectException",
+                LARGE_OBJECT_FALLBACKS);
+        appendCounter(sb, "gcq_rename_fallbacks_total", "Scoring runs whose rename detection hit its limit or budget",
+                RENAME_FALLBACKS);
+        appendCounter(sb, "gcq_score_failures_total", "Scoring runs that failed", SCORE_FAILURES);
+        return sb.toString();
+    }
+
+    /**
+     * Write all metrics to a file, as Prometheus text when the name ends in
+     * {@code .prom} or {@code .txt} and as JSON otherwise.
+     *
+     * @param file the target file
+     * @throws IOException if the file cannot be written
+     */
+    public static void export(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        String text = name.endsWith(".prom") || name.endsWith(".txt") ? toPrometheus() : toJson();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+    }
+
+    private static void appendCounter(StringBuilder sb, String name, String help, AtomicLong counter) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(counter.get()).append('\n');
+    }
+}
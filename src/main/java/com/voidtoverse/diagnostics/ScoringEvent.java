@@ -0,0 +1,35 @@
+package com.voidtoverse.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one exact scoring run of the staged changes.
+ *
+ * <p>Recorded only while a flight recording is active, e.g. when the
+ * application is started with {@code -XX:StartFlightRecording}; otherwise
+ * {@link #commit()} is a no-op.</p>
+ */
+@Name("com.voidtoverse.Scoring")
+@Label("Commit Quality Scoring")
+@Category("GitCodeQuality")
+@Description("Exact scoring of the staged changes of a repository")
+public final class ScoringEvent extends Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Files")
+    public int files;
+
+    @Label("Insertions")
+    public int insertions;
+
+    @Label("Deletions")
+    public int deletions;
+
+    @Label("Score")
+    public int score;
+}
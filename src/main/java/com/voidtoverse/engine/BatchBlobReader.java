@@ -0,0 +1,291 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.diagnostics.Metrics;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An object reader that loads the blobs of a batch of diff entries in one
+ * pass over the object store before they are diffed.
+ *
+ * <p>{@link DiffFormatter} reads the old and the new blob of each entry as it
+ * gets to it, which on a cold page cache is a random read into a large pack
+ * for every side of every file. {@link #prefetch} instead collects the blobs a
+ * batch of entries will need, sorts them by pack and offset within the pack,
+ * and reads them front to back; loose objects are inflated straight from a
+ * memory-mapped file. The formatter is then bound to this reader and finds
+ * every blob of the batch already in memory, so the edit counts, binary
+ * detection and large-file fallbacks are exactly those of the formatter
+ * itself. Blobs also go to the shared {@link BlobCache}, and blobs the formatter
+ * opens outside a batch, like those of history walks, are served from it.</p>
+ *
+ * <p>Packs are located through JGit's file-based object directory. Other
+ * object databases, and objects that live only in an alternate, are read in
+ * the order the entries list them. Anything the batch does not hold is read
+ * from the wrapped reader when asked for, so prefetching never changes a
+ * result. Like any {@link ObjectReader}, an instance must not be shared
+ * between threads.</p>
+ */
+final class BatchBlobReader extends ObjectReader.Filter {
+    /** Diff entries prefetched together. */
+    static final int BATCH_ENTRIES = 256;
+
+    /** Once a batch holds this many bytes, its remaining blobs are read when the formatter asks for them. */
+    static final int MAX_BATCH_BYTES = 32 << 20;
+
+    /** Longest loose object header inflated before the content: {@code "blob "}, a size and a NUL. */
+    private static final int MAX_HEADER = 32;
+
+    private static final byte[] BLOB_HEADER = Constants.encodeASCII("blob ");
+
+    /** Where a blob is stored; loose objects sort before packed ones, unknown ones last. */
+    private record Location(ObjectId id, int pack, long offset, File loose) {
+    }
+
+    private static final Comparator<Location> STORAGE_ORDER =
+            Comparator.comparingInt(Location::pack).thenComparingLong(Location::offset).thenComparing(Location::id);
+
+    private final Repository repository;
+    private final ObjectReader reader;
+    private final Map<ObjectId, byte[]> batch = new HashMap<>();
+
+    /**
+     * Open a reader on a repository.
+     *
+     * @param repository the repository to read from
+     */
+    BatchBlobReader(Repository repository) {
+        this.repository = repository;
+        this.reader = repository.newObjectReader();
+    }
+
+    @Override
+    protected ObjectReader delegate() {
+        return reader;
+    }
+
+    /**
+     * Load the blobs of a batch of entries, replacing the previous batch.
+     *
+     * <p>Entries without complete ids or with the same blob on both sides,
+     * sides that are not blobs (missing files and submodules) and blobs already
+     * in the {@link BlobCache} are skipped.
+     * Errors are not reported here: a blob that cannot be read is left to the
+     * formatter, which fails on it the same way it would without prefetching.</p>
+     *
+     * @param diffs the entries about to be diffed
+     * @param skipCountedPairs {@code true} to leave out entries whose counts are in the {@link EditCountCache}
+     */
+    void prefetch(List<DiffEntry> diffs, boolean skipCountedPairs) {
+        batch.clear();
+        Set<ObjectId> ids = new HashSet<>();
+        for (DiffEntry diff : diffs) {
+            if (!diff.getOldId().isComplete() || !diff.getNewId().isComplete()
+                    || diff.getOldId().equals(diff.getNewId())) {
+                continue;
+            }
+            if (skipCountedPairs && EditCountCache.get(diff.getOldId().toObjectId(),
+                    diff.getNewId().toObjectId()) != null) {
+                continue;
+            }
+            addBlob(ids, diff.getOldMode(), diff.getOldId());
+            addBlob(ids, diff.getNewMode(), diff.getNewId());
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        long bytes = 0;
+        for (Location location : locate(ids)) {
+            if (bytes >= MAX_BATCH_BYTES) {
+                break;
+            }
+            byte[] content = load(location);
+            if (content != null) {
+                batch.put(location.id(), content);
+                BlobCache.put(location.id(), content);
+                bytes += content.length;
+            }
+        }
+    }
+
+    @Override
+    public ObjectLoader open(AnyObjectId objectId) throws IOException {
+        return open(objectId, OBJ_ANY);
+    }
+
+    @Override
+    public ObjectLoader open(AnyObjectId objectId, int typeHint) throws IOException {
+        if (typeHint == Constants.OBJ_BLOB || typeHint == OBJ_ANY) {
+            byte[] content = cached(objectId, true);
+            if (content != null) {
+                return new ObjectLoader.SmallObject(Constants.OBJ_BLOB, content);
+            }
+        }
+        ObjectLoader loader = reader.open(objectId, typeHint);
+        if (typeHint == Constants.OBJ_BLOB && !loader.isLarge()) {
+            BlobCache.put(objectId, loader.getCachedBytes());
+        }
+        return loader;
+    }
+
+    @Override
+    public long getObjectSize(AnyObjectId objectId, int typeHint) throws IOException {
+        if (typeHint == Constants.OBJ_BLOB || typeHint == OBJ_ANY) {
+            byte[] content = cached(objectId, false);
+            if (content != null) {
+                return content.length;
+            }
+        }
+        return reader.getObjectSize(objectId, typeHint);
+    }
+
+    private byte[] cached(AnyObjectId objectId, boolean countHit) {
+        byte[] content = batch.get(objectId);
+        if (content == null) {
+            content = BlobCache.get(objectId);
+            if (content != null && countHit) {
+                Metrics.BLOB_CACHE_HITS.incrementAndGet();
+            }
+        }
+        return content;
+    }
+
+    private static void addBlob(Set<ObjectId> ids, FileMode mode, AbbreviatedObjectId id) {
+        if (mode.getObjectType() != Constants.OBJ_BLOB) {
+            return;
+        }
+        ObjectId blob = id.toObjectId();
+        if (BlobCache.get(blob) == null) {
+            ids.add(blob);
+        }
+    }
+
+    /** Find where each blob is stored and sort them into the order the object store lays them out. */
+    private List<Location> locate(Set<ObjectId> ids) {
+        List<Location> locations = new ArrayList<>(ids.size());
+        ObjectDatabase database = repository.getObjectDatabase();
+        List<Pack> packs = database instanceof ObjectDirectory directory
+                ? new ArrayList<>(directory.getPacks()) : List.of();
+        for (ObjectId id : ids) {
+            locations.add(locate(database, packs, id));
+        }
+        locations.sort(STORAGE_ORDER);
+        return locations;
+    }
+
+    private static Location locate(ObjectDatabase database, List<Pack> packs, ObjectId id) {
+        for (int p = 0; p < packs.size(); p++) {
+            try {
+                long offset = packs.get(p).getIndex().findOffset(id);
+                if (offset >= 0) {
+                    return new Location(id, p, offset, null);
+                }
+            } catch (IOException e) {
+                // unreadable index: the reader will report it, or find the object elsewhere
+            }
+        }
+        if (database instanceof ObjectDirectory directory) {
+            File loose = directory.fileFor(id);
+            if (loose.isFile()) {
+                // loose objects are spread over the fan-out directories; their id order groups them
+                return new Location(id, -1, 0, loose);
+            }
+        }
+        return new Location(id, Integer.MAX_VALUE, 0, null);
+    }
+
+    /** @return the blob's content, or {@code null} if it is too large to hold or cannot be read */
+    private byte[] load(Location location) {
+        try {
+            if (location.loose() != null) {
+                byte[] content = inflateLoose(location.loose());
+                if (content != null) {
+                    return content;
+                }
+            }
+            ObjectLoader loader = reader.open(location.id(), Constants.OBJ_BLOB);
+            return loader.isLarge() ? null : loader.getCachedBytes();
+        } catch (IOException e) {
+            // left for the formatter to read, and to fail on
+            return null;
+        }
+    }
+
+    /**
+     * Inflate a loose blob from a memory-mapped file.
+     *
+     * @return the content, or {@code null} if the file is not a blob in the standard loose format or is too
+     *         large for a batch
+     */
+    private static byte[] inflateLoose(File file) throws IOException {
+        Inflater inflater = new Inflater();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            inflater.setInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            byte[] header = new byte[MAX_HEADER];
+            int n = inflater.inflate(header);
+            int nul = 0;
+            while (nul < n && header[nul] != 0) {
+                nul++;
+            }
+            if (nul == n || nul <= BLOB_HEADER.length) {
+                return null;
+            }
+            for (int i = 0; i < BLOB_HEADER.length; i++) {
+                if (header[i] != BLOB_HEADER[i]) {
+                    return null;
+                }
+            }
+            long size = 0;
+            for (int i = BLOB_HEADER.length; i < nul; i++) {
+                if (header[i] < '0' || header[i] > '9') {
+                    return null;
+                }
+                size = size * 10 + (header[i] - '0');
+            }
+            int have = n - nul - 1;
+            if (size > MAX_BATCH_BYTES || have > size) {
+                return null;
+            }
+            byte[] content = new byte[(int) size];
+            System.arraycopy(header, nul + 1, content, 0, have);
+            while (have < size) {
+                int read = inflater.inflate(content, have, content.length - have);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    // truncated: let JGit's own reader report it
+                    return null;
+                }
+                have += read;
+            }
+            return content;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+}
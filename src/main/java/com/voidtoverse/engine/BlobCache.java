@@ -0,0 +1,93 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the content of recently read blobs, bounded by their total size.
+ *
+ * <p>Blobs are content addressed, so a cached blob never goes stale. The
+ * cache pays off where the same blob is read twice in a row: walking history
+ * newest first, the old side of one commit's change is the new side of its
+ * parent's, and a staged file edited again is diffed against the same HEAD
+ * blob. {@link BatchBlobReader} fills it and serves from it, for staged
+ * scoring and history scoring alike. The least recently used blobs are evicted
+ * once the total exceeds the budget, and blobs larger than an eighth of the
+ * budget are not kept at all, so one generated file cannot flush everything
+ * else.</p>
+ */
+final class BlobCache {
+    /** Budget used until {@link #setMaxBytes} is called. */
+    static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final Map<ObjectId, byte[]> BLOBS = new LinkedHashMap<>(256, 0.75f, true);
+
+    // guarded by BLOBS
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long bytes;
+
+    private BlobCache() {}
+
+    /**
+     * Look up a blob.
+     *
+     * @param id the blob id
+     * @return the blob's content, which must not be modified, or {@code null} if it is not cached
+     */
+    static byte[] get(AnyObjectId id) {
+        synchronized (BLOBS) {
+            return BLOBS.get(id);
+        }
+    }
+
+    /**
+     * Remember a blob, evicting the least recently used ones if the budget is exceeded.
+     *
+     * @param id the blob id
+     * @param content the blob's content; it is shared, not copied, and must not be modified afterwards
+     */
+    static void put(AnyObjectId id, byte[] content) {
+        synchronized (BLOBS) {
+            if (content.length > maxBytes / 8 || BLOBS.containsKey(id)) {
+                return;
+            }
+            BLOBS.put(id.copy(), content);
+            bytes += content.length;
+            evict();
+        }
+    }
+
+    /**
+     * Change the budget, evicting blobs until the cache fits.
+     *
+     * @param max the total size of cached blobs in bytes; {@code 0} disables the cache
+     */
+    static void setMaxBytes(long max) {
+        synchronized (BLOBS) {
+            maxBytes = Math.max(0, max);
+            evict();
+        }
+    }
+
+    /**
+     * Drop every cached blob.
+     */
+    static void clear() {
+        synchronized (BLOBS) {
+            BLOBS.clear();
+            bytes = 0;
+        }
+    }
+
+    private static void evict() {
+        Iterator<byte[]> eldest = BLOBS.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.engine.HistoryAnalyzer.CommitScore;
+import com.voidtoverse.persistence.ScoreCache;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Scores a feature branch against the branch it will be merged into, commit by
+ * commit and as a whole.
+ *
+ * <p>The range is what a pull request shows: the commits reachable from the
+ * tip but not from the base, and the change from their merge base to the tip.
+ * Each commit is scored against its first parent like in
+ * {@link HistoryAnalyzer}, including its {@link ScoreCache}, and the cumulative
+ * change is scored as a single commit. One {@link RevWalk}, {@link BatchBlobReader}
+ * and {@link DiffFormatter} serve the merge base search, the walk and every diff,
+ * and the formatter's tree walk skips subtrees whose ids are equal on both
+ * sides, so a branch that touches a few directories of a large tree costs the
+ * same as one in a small tree. Like the history views, ranges are scored with
+ * the specification's formula.</p>
+ */
+public final class BranchScorer {
+    /** Base branches tried in order when none is given. */
+    private static final String[] DEFAULT_BASES = {"main", "master", "origin/main", "origin/master"};
+
+    private BranchScorer() {}
+
+    /**
+     * The scores of a branch.
+     *
+     * @param mergeBase the commit the branch forked from, or {@code null} if it shares no history with the base
+     * @param commits the score of every commit in the range, oldest first
+     * @param messages the full message of every commit in {@code commits}, in the same order, so that callers
+     *                 can apply {@link ScoringRules#isExempt} per commit
+     * @param cumulative the change from the merge base to the tip scored as one commit, carrying the tip's id,
+     *                   author and time
+     */
+    public record RangeScore(ObjectId mergeBase, List<CommitScore> commits, List<String> messages,
+                             CommitScore cumulative) {
+    }
+
+    /**
+     * Score the commits of {@code tip} that are not on {@code base}.
+     *
+     * @param repo the repository directory
+     * @param base the revision the branch is merged into, or {@code null} for the first of {@code main},
+     *             {@code master}, {@code origin/main} and {@code origin/master} that exists
+     * @param tip the revision to score, usually {@code HEAD}
+     * @param skipMerges {@code true} to leave commits with more than one parent out of the per-commit scores;
+     *                   the cumulative score always covers them
+     * @param cancelled polled between commits; returning {@code true} stops the walk
+     * @return the per-commit and cumulative scores
+     * @throws IllegalArgumentException if a revision cannot be resolved
+     * @throws IOException if the repository or one of its objects cannot be read
+     * @throws CancellationException if the walk was cancelled
+     */
+    public static RangeScore score(File repo, String base, String tip, boolean skipMerges, BooleanSupplier cancelled)
+            throws IOException {
+        try (Repository repository = RepositoryPool.open(repo);
+             BatchBlobReader reader = new BatchBlobReader(repository);
+             RevWalk walk = new RevWalk(reader);
+             DiffFormatter formatter = QualityEngine.newFormatter()) {
+            formatter.setReader(reader, repository.getConfig());
+            RevCommit baseCommit = walk.parseCommit(resolve(repository, base));
+            RevCommit tipCommit = walk.parseCommit(resolve(repository, tip));
+
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(baseCommit);
+            walk.markStart(tipCommit);
+            RevCommit mergeBase = walk.next();
+
+            walk.reset();
+            walk.setRevFilter(RevFilter.ALL);
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.REVERSE, true);
+            walk.markStart(tipCommit);
+            walk.markUninteresting(baseCommit);
+            List<CommitScore> commits = new ArrayList<>();
+            List<String> messages = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Branch scoring cancelled");
+                }
+                if (skipMerges && commit.getParentCount() > 1) {
+                    continue;
+                }
+                commits.add(HistoryAnalyzer.scoreCached(walk, reader, formatter, commit));
+                messages.add(commit.getFullMessage());
+            }
+
+            CommitScore cumulative = HistoryAnalyzer.score(reader, formatter, tipCommit,
+                    mergeBase == null ? null : mergeBase.getTree(), tipCommit.getTree());
+            return new RangeScore(mergeBase == null ? null : mergeBase.copy(), commits, messages, cumulative);
+        } finally {
+            ScoreCache.flush();
+        }
+    }
+
+    private static ObjectId resolve(Repository repository, String revision) throws IOException {
+        if (revision != null) {
+            ObjectId id = repository.resolve(revision + "^{commit}");
+            if (id == null) {
+                throw new IllegalArgumentException("Unknown revision: " + revision);
+            }
+            return id;
+        }
+        for (String candidate : DEFAULT_BASES) {
+            ObjectId id = repository.resolve(candidate + "^{commit}");
+            if (id != null) {
+                return id;
+            }
+        }
+        throw new IllegalArgumentException("No main or master branch to compare with");
+    }
+}
@@ -0,0 +1,286 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.diagnostics.Metrics;
+import com.voidtoverse.engine.HistoryAnalyzer.CommitScore;
+import com.voidtoverse.persistence.ScoreCache;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pages through a repository's history lazily for the history viewer.
+ *
+ * <p>The history is walked only as far as the pages requested so far, so the
+ * first page is available after reading a single page of commits regardless of
+ * how long the log is. The pager remembers walked commits by their 20-byte ids
+ * only, and the walk keeps just the parsed headers it needs to continue;
+ * message bodies are read when a row is built and dropped right after. The
+ * display rows of at most {@link #MAX_PAGES} pages are held in memory and older
+ * pages are evicted and rebuilt from the walked ids when scrolled back into
+ * view. Scores are computed per row on request, so a viewer asks only for
+ * the rows it actually shows.</p>
+ *
+ * <p>{@link RevWalk} is not thread safe, so every JGit access happens on the
+ * pager's own background thread; callers receive {@link CompletableFuture}s
+ * and can peek at already loaded rows from any thread.</p>
+ */
+public final class CommitPager implements AutoCloseable {
+    /** Commits per page. */
+    public static final int PAGE_SIZE = 100;
+
+    /** Pages whose rows are kept in memory at the same time. */
+    private static final int MAX_PAGES = 20;
+
+    /** Scores kept in memory; the persistent {@link ScoreCache} backs anything older. */
+    private static final int MAX_SCORES = 2_000;
+
+    /**
+     * One line of the history view.
+     *
+     * @param id the commit id
+     * @param abbreviated the abbreviated commit id
+     * @param summary the first line of the commit message
+     * @param author the author's name
+     */
+    public record Row(ObjectId id, String abbreviated, String summary, String author) {
+    }
+
+    private final ExecutorService thread;
+    private final Repository repository;
+    private final BatchBlobReader reader;
+    private final RevWalk walk;
+    private final DiffFormatter formatter;
+    private volatile boolean closed;
+    // confined to the pager thread: the ids of the walked commits, five ints each
+    private int[] walked = new int[5 * PAGE_SIZE];
+    private int walkedCount;
+    private boolean exhausted;
+
+    // guarded by themselves; read from the FX thread through peek methods
+    private final Map<Integer, List<Row>> pages = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Row>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final Map<Integer, CommitScore> scores = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CommitScore> eldest) {
+            return size() > MAX_SCORES;
+        }
+    };
+    private final Map<Integer, CompletableFuture<List<Row>>> pendingPages = new HashMap<>();
+    private final Map<Integer, CompletableFuture<CommitScore>> pendingScores = new HashMap<>();
+
+    /**
+     * Open a pager on the history reachable from HEAD.
+     *
+     * @param repo the repository directory
+     * @throws IOException if the repository cannot be opened
+     */
+    public CommitPager(File repo) throws IOException {
+        this.repository = RepositoryPool.open(repo);
+        this.reader = new BatchBlobReader(repository);
+        this.walk = new RevWalk(reader);
+        // bodies are parsed on demand when a page is built and dropped right after
+        walk.setRetainBody(false);
+        this.formatter = QualityEngine.newFormatter();
+        formatter.setReader(reader, repository.getConfig());
+        this.thread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "commit-pager");
+            t.setDaemon(true);
+            return t;
+        });
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head != null) {
+            walk.markStart(walk.parseCommit(head));
+        } else {
+            exhausted = true;
+        }
+    }
+
+    /**
+     * Return the rows of a page if they are currently in memory.
+     *
+     * @param page zero-based page index
+     * @return the rows, or {@code null} if the page has not been loaded or was evicted
+     */
+    public List<Row> peekPage(int page) {
+        synchronized (pages) {
+            return pages.get(page);
+        }
+    }
+
+    /**
+     * Return the score of a row if it has been computed and is still in memory.
+     *
+     * @param index zero-based row index
+     * @return the score, or {@code null} if unknown
+     */
+    public CommitScore peekScore(int index) {
+        synchronized (scores) {
+            return scores.get(index);
+        }
+    }
+
+    /**
+     * Load a page, walking further into the history if needed.
+     *
+     * @param page zero-based page index
+     * @return a future completed with the page's rows; fewer than {@link #PAGE_SIZE}
+     *         (possibly none) once the end of the history is reached
+     */
+    public CompletableFuture<List<Row>> loadPage(int page) {
+        List<Row> loaded = peekPage(page);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new CancellationException("Pager closed"));
+        }
+        synchronized (pendingPages) {
+            return pendingPages.computeIfAbsent(page, p -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    checkOpen();
+                    List<Row> rows = buildPage(p);
+                    synchronized (pages) {
+                        pages.put(p, rows);
+                    }
+                    return rows;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    synchronized (pendingPages) {
+                        pendingPages.remove(p);
+                    }
+                }
+            }, thread));
+        }
+    }
+
+    /**
+     * Score the commit shown in a row, consulting {@link ScoreCache} first.
+     * The row's page must have been loaded.
+     *
+     * @param index zero-based row index
+     * @return a future completed with the commit's score
+     */
+    public CompletableFuture<CommitScore> loadScore(int index) {
+        CommitScore known = peekScore(index);
+        if (known != null) {
+            return CompletableFuture.completedFuture(known);
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new CancellationException("Pager closed"));
+        }
+        synchronized (pendingScores) {
+            return pendingScores.computeIfAbsent(index, i -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    checkOpen();
+                    CommitScore score = scoreRow(i);
+                    synchronized (scores) {
+                        scores.put(i, score);
+                    }
+                    return score;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    synchronized (pendingScores) {
+                        pendingScores.remove(i);
+                    }
+                }
+            }, thread));
+        }
+    }
+
+    /**
+     * Stop the pager thread and release the repository. Requests still queued
+     * complete exceptionally instead of reading from the repository.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.execute(() -> {
+            formatter.close();
+            walk.close();
+            reader.close();
+            repository.close();
+        });
+        thread.shutdown();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new CancellationException("Pager closed");
+        }
+    }
+
+    /** Walk until {@code count} commits are known or the history ends. Pager thread only. */
+    private void walkTo(int count) throws IOException {
+        while (!exhausted && walkedCount < count) {
+            RevCommit next = walk.next();
+            if (next == null) {
+                exhausted = true;
+            } else {
+                if (walked.length < 5 * (walkedCount + 1)) {
+                    walked = Arrays.copyOf(walked, walked.length * 2);
+                }
+                next.copyRawTo(walked, 5 * walkedCount++);
+            }
+        }
+    }
+
+    /** The commit shown in a row, which must have been walked. Pager thread only. */
+    private RevCommit walked(int index) throws IOException {
+        // the walk still holds the commit's header, so this only looks it up
+        return walk.parseCommit(ObjectId.fromRaw(walked, 5 * index));
+    }
+
+    private List<Row> buildPage(int page) throws IOException {
+        long start = System.nanoTime();
+        int from = page * PAGE_SIZE;
+        walkTo(from + PAGE_SIZE);
+        List<Row> rows = new ArrayList<>();
+        for (int i = from; i < Math.min(from + PAGE_SIZE, walkedCount); i++) {
+            RevCommit commit = walked(i);
+            walk.parseBody(commit);
+            rows.add(new Row(commit.copy(), commit.abbreviate(7).name(), commit.getShortMessage(),
+                    commit.getAuthorIdent().getName()));
+            commit.disposeBody();
+        }
+        Metrics.HISTORY_PAGE.recordSince(start);
+        return rows;
+    }
+
+    private CommitScore scoreRow(int index) throws IOException {
+        walkTo(index + 1);
+        RevCommit commit = walked(index);
+        walk.parseBody(commit);
+        try {
+            return HistoryAnalyzer.scoreCached(walk, reader, formatter, commit);
+        } finally {
+            commit.disposeBody();
+            ScoreCache.flush();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.diagnostics.Metrics;
+import com.voidtoverse.engine.QualityEngine.Result;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.RmCommand;
+import org.eclipse.jgit.api.errors.EmptyCommitException;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stages every change, commits it and rescores the repository on a virtual
+ * thread.
+ *
+ * <p>{@code git add .} hands the whole working tree to {@code AddCommand},
+ * which on a large tree hashes far more than what changed. Instead the
+ * pipeline first runs an {@link IndexDiff} over a {@link FileTreeIterator}:
+ * files whose size and modification time match the stat data cached in the
+ * index are skipped without being read, and only racily clean entries are
+ * compared by content. Just the modified and untracked paths found that way
+ * are then added, and missing files are removed from the index, which is what
+ * committing "all changes" means for a deleted file. Conflicting paths of a
+ * merge are added too, or removed if the file was deleted, which resolves
+ * them the way {@code git add .} does.</p>
+ *
+ * <p>Only one commit runs at a time; {@link #commitAll} fails immediately
+ * while another is in flight. The pipeline holds the repository's lock in
+ * {@link RepositoryExecutor} while it writes the index, so it never overlaps
+ * other exclusive work on the same repository. Failures are reported through
+ * the returned future rather than swallowed.</p>
+ */
+public final class CommitPipeline {
+    /** Receives progress updates on the pipeline thread. */
+    public interface Progress {
+        /**
+         * Report the current step.
+         *
+         * @param step a short description of what is being done
+         * @param fraction how far the whole pipeline is, between 0 and 1, or negative if unknown
+         */
+        void update(String step, double fraction);
+    }
+
+    /**
+     * What a finished commit did.
+     *
+     * @param commitId abbreviated id of the new commit
+     * @param staged number of new or modified files added to the index
+     * @param removed number of deleted files removed from the index
+     * @param quality the quality of the staged changes after the commit
+     */
+    public record Outcome(String commitId, int staged, int removed, Result quality) {
+    }
+
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    private CommitPipeline() {}
+
+    /** @return whether a commit is currently in flight */
+    public static boolean isRunning() {
+        return RUNNING.get();
+    }
+
+    /**
+     * Stage all changes of a repository, commit them and rescore.
+     *
+     * @param repo the repository directory
+     * @param message the commit message
+     * @param progress receives progress updates on the pipeline thread
+     * @return a future completed with the outcome, or exceptionally with the
+     *         reason the commit failed: {@link IllegalStateException} while another
+     *         commit is running, {@link EmptyCommitException} when there is nothing
+     *         to commit, or the JGit or I/O error that stopped it
+     */
+    public static CompletableFuture<Outcome> commitAll(File repo, String message, Progress progress) {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A commit is already in progress"));
+        }
+        return RepositoryExecutor.submitExclusive(repo, () -> {
+            try {
+                return run(repo, message, progress);
+            } finally {
+                RUNNING.set(false);
+            }
+        });
+    }
+
+    private static Outcome run(File repo, String message, Progress progress) throws GitAPIException, IOException {
+        long start = System.nanoTime();
+        RevCommit commit;
+        Set<String> added = new TreeSet<>();
+        Set<String> removed = new TreeSet<>();
+        try (Repository repository = RepositoryPool.open(repo); Git git = Git.wrap(repository)) {
+            progress.update("Checking working tree…", 0);
+            IndexDiff diff = new IndexDiff(repository, Constants.HEAD, new FileTreeIterator(repository));
+            diff.diff();
+            added.addAll(diff.getModified());
+            added.addAll(diff.getUntracked());
+            removed.addAll(diff.getMissing());
+            for (String path : diff.getConflicting()) {
+                // staging a conflicting path, as resolved in the working tree, clears its conflict
+                boolean present = Files.exists(repository.getWorkTree().toPath().resolve(path),
+                        LinkOption.NOFOLLOW_LINKS);
+                (present ? added : removed).add(path);
+            }
+
+            if (!added.isEmpty()) {
+                progress.update("Staging " + added.size() + " files…", 0.25);
+                AddCommand add = git.add();
+                added.forEach(add::addFilepattern);
+                add.call();
+            }
+            if (!removed.isEmpty()) {
+                progress.update("Removing " + removed.size() + " deleted files…", 0.4);
+                RmCommand rm = git.rm().setCached(true);
+                removed.forEach(rm::addFilepattern);
+                rm.call();
+            }
+
+            progress.update("Committing…", 0.5);
+            commit = git.commit().setMessage(message).setAllowEmpty(false).call();
+        } finally {
+            Metrics.COMMIT.recordSince(start);
+        }
+
+        progress.update("Scoring…", 0.75);
+        Result quality = QualityEngine.calculateQuality(repo);
+        progress.update("Done", 1);
+        return new Outcome(commit.abbreviate(7).name(), added.size(), removed.size(), quality);
+    }
+}
@@ -0,0 +1,70 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the insertion and deletion counts of previously diffed blob pairs.
+ *
+ * <p>Blobs are content addressed, so the edit list between a HEAD blob and an
+ * index blob never changes for a given pair of object ids. Keeping the counts
+ * around lets {@link QualityEngine} skip the Myers diff for every staged file
+ * that has not been touched since the last recalculation; only entries whose
+ * index blob changed are diffed again. The cache is bounded and evicts the
+ * least recently used pair once {@link #MAX_ENTRIES} is reached.</p>
+ */
+final class EditCountCache {
+    /** Upper bound on cached blob pairs; each entry costs roughly 100 bytes. */
+    private static final int MAX_ENTRIES = 50_000;
+
+    /** Identifies the two sides of a staged file diff. */
+    private record BlobPair(ObjectId oldId, ObjectId newId) {
+    }
+
+    private static final Map<BlobPair, int[]> COUNTS = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BlobPair, int[]> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private EditCountCache() {}
+
+    /**
+     * Look up the counts for a blob pair.
+     *
+     * @param oldId the blob id on the HEAD side (zero id for added files)
+     * @param newId the blob id on the index side (zero id for deleted files)
+     * @return a two‑element array of insertions and deletions, or {@code null} if unknown
+     */
+    static int[] get(ObjectId oldId, ObjectId newId) {
+        synchronized (COUNTS) {
+            return COUNTS.get(new BlobPair(oldId.copy(), newId.copy()));
+        }
+    }
+
+    /**
+     * Record the counts for a blob pair.
+     *
+     * @param oldId the blob id on the HEAD side
+     * @param newId the blob id on the index side
+     * @param insertions lines added between the two blobs
+     * @param deletions lines removed between the two blobs
+     */
+    static void put(ObjectId oldId, ObjectId newId, int insertions, int deletions) {
+        synchronized (COUNTS) {
+            COUNTS.put(new BlobPair(oldId.copy(), newId.copy()), new int[] {insertions, deletions});
+        }
+    }
+
+    /**
+     * Drop every cached pair. Mostly useful when the scoring formula changes.
+     */
+    static void clear() {
+        synchronized (COUNTS) {
+            COUNTS.clear();
+        }
+    }
+}
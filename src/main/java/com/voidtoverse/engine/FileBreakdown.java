@@ -0,0 +1,167 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+
+import java.util.Arrays;
+
+/**
+ * Per-file results of a scoring run, filled in while the run progresses.
+ *
+ * <p>{@link QualityEngine#calculateQuality(java.io.File, java.util.function.BooleanSupplier, FileBreakdown)}
+ * appends one row per staged file as soon as that file has been diffed, so a
+ * reader polling {@link #size()} sees the worst offenders long before a large
+ * index has been fully scored. Rows are kept in parallel primitive arrays that
+ * grow by doubling: a hundred thousand staged files cost a few megabytes and no
+ * per-row objects besides the path strings JGit already allocated.</p>
+ *
+ * <p>All methods are synchronized; the parallel diff appends from several
+ * worker threads while the UI reads.</p>
+ */
+public final class FileBreakdown {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final ChangeType[] CHANGE_TYPES = ChangeType.values();
+
+    private String[] paths = new String[INITIAL_CAPACITY];
+    private String[] oldPaths = new String[INITIAL_CAPACITY];
+    private byte[] changeTypes = new byte[INITIAL_CAPACITY];
+    private int[] insertions = new int[INITIAL_CAPACITY];
+    private int[] deletions = new int[INITIAL_CAPACITY];
+    private long[] scoreMillis = new long[INITIAL_CAPACITY];
+    private int size;
+    private int unpaired;
+
+    /**
+     * Append the result of one file that was not renamed or copied.
+     *
+     * @param path the repository-relative path
+     * @param type how the file changed
+     * @param added lines inserted
+     * @param removed lines deleted
+     * @param millis the file's contribution to the score in thousandths of a point
+     */
+    public void add(String path, ChangeType type, int added, int removed, long millis) {
+        add(path, path, type, added, removed, millis);
+    }
+
+    /**
+     * Append the result of one file.
+     *
+     * @param path the repository-relative path
+     * @param oldPath the path the file had in HEAD; {@code path} unless it was renamed or copied
+     * @param type how the file changed
+     * @param added lines inserted
+     * @param removed lines deleted
+     * @param millis the file's contribution to the score in thousandths of a point
+     */
+    public synchronized void add(String path, String oldPath, ChangeType type, int added, int removed,
+                                 long millis) {
+        if (size == paths.length) {
+            int capacity = size * 2;
+            paths = Arrays.copyOf(paths, capacity);
+            oldPaths = Arrays.copyOf(oldPaths, capacity);
+            changeTypes = Arrays.copyOf(changeTypes, capacity);
+            insertions = Arrays.copyOf(insertions, capacity);
+            deletions = Arrays.copyOf(deletions, capacity);
+            scoreMillis = Arrays.copyOf(scoreMillis, capacity);
+        }
+        paths[size] = path;
+        oldPaths[size] = oldPath;
+        changeTypes[size] = (byte) type.ordinal();
+        insertions[size] = added;
+        deletions[size] = removed;
+        scoreMillis[size] = millis;
+        size++;
+    }
+
+    /**
+     * Record that rename detection stopped at its limit or time budget.
+     *
+     * @param files the added and deleted files that were scored without looking for their other half
+     */
+    public synchronized void setUnpaired(int files) {
+        unpaired = files;
+    }
+
+    /**
+     * @return the added and deleted files scored without rename detection because it hit its limit or time
+     *         budget; {@code 0} when every move was looked for
+     */
+    public synchronized int unpaired() {
+        return unpaired;
+    }
+
+    /** @return the number of files reported so far */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return the path of row {@code row} */
+    public synchronized String path(int row) {
+        return paths[check(row)];
+    }
+
+    /** @return the path row {@code row} had in HEAD, which differs from {@link #path} for renames and copies */
+    public synchronized String oldPath(int row) {
+        return oldPaths[check(row)];
+    }
+
+    /** @return how the file of row {@code row} changed */
+    public synchronized ChangeType changeType(int row) {
+        return CHANGE_TYPES[changeTypes[check(row)]];
+    }
+
+    /** @return the lines inserted in row {@code row} */
+    public synchronized int insertions(int row) {
+        return insertions[check(row)];
+    }
+
+    /** @return the lines deleted in row {@code row} */
+    public synchronized int deletions(int row) {
+        return deletions[check(row)];
+    }
+
+    /** @return the contribution of row {@code row} to the score, in thousandths of a point */
+    public synchronized long contributionMillis(int row) {
+        return scoreMillis[check(row)];
+    }
+
+    /** @return the sum of all contributions reported so far, in thousandths of a point */
+    public synchronized long totalMillis() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += scoreMillis[i];
+        }
+        return total;
+    }
+
+    /**
+     * Order the rows reported so far by contribution, largest first. Rows with
+     * equal contributions keep the order in which they were reported.
+     *
+     * <p>Each row is packed into a single {@code long} (contribution in the high
+     * bits, inverted row number in the low ones) and the keys are sorted as
+     * primitives, so no comparator or boxed index is involved.</p>
+     *
+     * @return row numbers in descending order of contribution
+     */
+    public synchronized int[] rowsByContribution() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long millis = Math.min(Math.max(scoreMillis[i], 0), 0xFFFFFFFFL);
+            keys[i] = (millis << 31) | (Integer.MAX_VALUE - i);
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = Integer.MAX_VALUE - (int) (keys[size - 1 - i] & Integer.MAX_VALUE);
+        }
+        return rows;
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,237 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.persistence.ScoreCache;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Scores every commit of a repository's history in a single pass.
+ *
+ * <p>Each commit is diffed against its first parent (root commits against the
+ * empty tree) and scored with the same formula as staged changes. One
+ * {@link RevWalk}, {@link BatchBlobReader} and {@link DiffFormatter} serve the
+ * whole walk, so pack indexes, inflater state and the delta base cache stay warm
+ * from one commit to the next. The blobs of each commit are read in storage
+ * order, and the shared {@link BlobCache} hands the new side of a parent's
+ * change, which is the old side of the commit walked just before it, back
+ * without reading it again. The formatter's tree walk only descends into subtrees
+ * whose ids differ, so directories a commit did not touch cost nothing.
+ * Scores are remembered in the persistent {@link ScoreCache}, so walking a
+ * history that was analysed before only diffs the commits added since.
+ * Results are streamed to a consumer as the walk proceeds rather than
+ * collected, which keeps memory flat on very long histories; {@link Trends}
+ * aggregates them per author and per week.</p>
+ */
+public final class HistoryAnalyzer {
+    private HistoryAnalyzer() {}
+
+    /**
+     * The score of one commit.
+     *
+     * @param id the commit id
+     * @param author the author's e-mail address
+     * @param commitTime commit time in seconds since the epoch
+     * @param files number of files changed relative to the first parent
+     * @param insertions lines added
+     * @param deletions lines removed
+     * @param score the raw change score
+     * @param quality the quality percentage derived from {@code score}
+     */
+    public record CommitScore(ObjectId id, String author, int commitTime, int files, int insertions,
+                              int deletions, int score, int quality) {
+    }
+
+    /**
+     * Walk the history reachable from HEAD and score every commit.
+     *
+     * @param repo the repository directory
+     * @param skipMerges {@code true} to leave out commits with more than one parent
+     * @param sink receives each score in walk order (newest first)
+     * @param cancelled polled between commits; returning {@code true} stops the walk
+     * @throws IOException if the repository or one of its objects cannot be read
+     * @throws CancellationException if the walk was cancelled
+     */
+    public static void analyze(File repo, boolean skipMerges, Consumer<CommitScore> sink, BooleanSupplier cancelled)
+            throws IOException {
+        try (Repository repository = RepositoryPool.open(repo);
+             BatchBlobReader reader = new BatchBlobReader(repository);
+             RevWalk walk = new RevWalk(reader);
+             DiffFormatter formatter = QualityEngine.newFormatter()) {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head == null) {
+                // unborn branch: nothing to score
+                return;
+            }
+            formatter.setReader(reader, repository.getConfig());
+            walk.markStart(walk.parseCommit(head));
+            for (RevCommit commit : walk) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("History analysis cancelled");
+                }
+                if (skipMerges && commit.getParentCount() > 1) {
+                    continue;
+                }
+                sink.accept(scoreCached(walk, reader, formatter, commit));
+            }
+        } finally {
+            ScoreCache.flush();
+        }
+    }
+
+    /**
+     * Score a commit against its first parent, taking the result from the
+     * {@link ScoreCache} when it is there and storing it otherwise. The caller
+     * flushes the cache.
+     *
+     * @param walk the walk the commit came from, used to parse its parent
+     * @param reader the reader shared by {@code walk} and {@code formatter}
+     * @param formatter a formatter bound to {@code reader}
+     * @param commit the commit to score
+     * @return the commit's score
+     * @throws IOException if a tree or blob cannot be read
+     */
+    static CommitScore scoreCached(RevWalk walk, BatchBlobReader reader, DiffFormatter formatter, RevCommit commit)
+            throws IOException {
+        ScoreCache.Entry cached = ScoreCache.lookup(QualityEngine.FORMULA_VERSION, commit);
+        if (cached != null) {
+            return new CommitScore(commit.copy(), commit.getAuthorIdent().getEmailAddress(),
+                    commit.getCommitTime(), cached.files(), cached.insertions(), cached.deletions(),
+                    cached.score(), QualityEngine.toQuality(cached.score()));
+        }
+        CommitScore score = score(walk, reader, formatter, commit);
+        ScoreCache.store(QualityEngine.FORMULA_VERSION, commit, new ScoreCache.Entry(score.files(),
+                score.insertions(), score.deletions(), score.score()));
+        return score;
+    }
+
+    /**
+     * Score a single commit against its first parent using shared walk resources.
+     *
+     * @param walk the walk the commit came from, used to parse its parent
+     * @param reader the reader shared by {@code walk} and {@code formatter}
+     * @param formatter a formatter bound to {@code reader}
+     * @param commit the commit to score
+     * @return the commit's score
+     * @throws IOException if a tree or blob cannot be read
+     */
+    static CommitScore score(RevWalk walk, BatchBlobReader reader, DiffFormatter formatter, RevCommit commit)
+            throws IOException {
+        RevTree oldTree = commit.getParentCount() == 0 ? null : walk.parseCommit(commit.getParent(0)).getTree();
+        return score(reader, formatter, commit, oldTree, commit.getTree());
+    }
+
+    /**
+     * Score the difference between two trees as if it were one commit.
+     *
+     * <p>The formatter's tree walk only descends into subtrees whose ids
+     * differ, so the cost depends on what changed rather than on the size of the
+     * trees.</p>
+     *
+     * @param reader the reader shared with {@code formatter}
+     * @param formatter a formatter bound to {@code reader}
+     * @param commit the commit whose id, author and time the score carries
+     * @param oldTree the tree before the change, or {@code null} for the empty tree
+     * @param newTree the tree after the change
+     * @return the score
+     * @throws IOException if a tree or blob cannot be read
+     */
+    static CommitScore score(BatchBlobReader reader, DiffFormatter formatter, RevCommit commit, RevTree oldTree,
+                             RevTree newTree) throws IOException {
+        AbstractTreeIterator oldIterator = oldTree == null ? new EmptyTreeIterator()
+                : new CanonicalTreeParser(null, reader, oldTree);
+        List<DiffEntry> diffs = formatter.scan(oldIterator, new CanonicalTreeParser(null, reader, newTree));
+        reader.prefetch(diffs, false);
+        int insertions = 0;
+        int deletions = 0;
+        for (DiffEntry diff : diffs) {
+            // historical blob pairs rarely repeat, so keep them out of the staged-diff cache
+            int[] counts = QualityEngine.diffEdits(formatter, reader, diff);
+            insertions += counts[0];
+            deletions += counts[1];
+        }
+        int score = QualityEngine.rawScore(diffs.size(), insertions, deletions);
+        return new CommitScore(commit.copy(), commit.getAuthorIdent().getEmailAddress(), commit.getCommitTime(),
+                diffs.size(), insertions, deletions, score, QualityEngine.toQuality(score));
+    }
+
+    /**
+     * Aggregated quality over a group of commits.
+     */
+    public static final class Trend {
+        private int commits;
+        private long qualitySum;
+        private long scoreSum;
+
+        void add(CommitScore score) {
+            commits++;
+            qualitySum += score.quality();
+            scoreSum += score.score();
+        }
+
+        /** @return the number of commits in the group */
+        public int commits() {
+            return commits;
+        }
+
+        /** @return the mean quality percentage of the group */
+        public double averageQuality() {
+            return commits == 0 ? 0 : (double) qualitySum / commits;
+        }
+
+        /** @return the mean raw score of the group */
+        public double averageScore() {
+            return commits == 0 ? 0 : (double) scoreSum / commits;
+        }
+    }
+
+    /**
+     * Collects per-author and per-week trends from a stream of commit scores.
+     * Weeks start on Monday and are computed in UTC. Not thread safe; feed it
+     * from the thread running {@link #analyze}.
+     */
+    public static final class Trends implements Consumer<CommitScore> {
+        private final Map<String, Trend> byAuthor = new TreeMap<>();
+        private final Map<LocalDate, Trend> byWeek = new TreeMap<>();
+
+        @Override
+        public void accept(CommitScore score) {
+            byAuthor.computeIfAbsent(score.author(), k -> new Trend()).add(score);
+            LocalDate week = Instant.ofEpochSecond(score.commitTime()).atZone(ZoneOffset.UTC).toLocalDate()
+                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            byWeek.computeIfAbsent(week, k -> new Trend()).add(score);
+        }
+
+        /** @return trends keyed by author e-mail, sorted alphabetically */
+        public Map<String, Trend> byAuthor() {
+            return byAuthor;
+        }
+
+        /** @return trends keyed by the Monday starting each week, oldest first */
+        public Map<LocalDate, Trend> byWeek() {
+            return byWeek;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The content of one blob, indexed by line, for display.
+ *
+ * <p>Git stores blobs compressed, so they cannot be mapped where they lie.
+ * Small blobs are loaded onto the heap; larger ones are streamed once into a
+ * temporary file, which is then memory-mapped read-only, so a multi-megabyte
+ * fixture costs page cache rather than heap. The same pass records where every
+ * line starts and hashes each line with {@link StreamedBlobs#hash}, so the
+ * blob can be diffed as a {@link Sequence} of lines without reading it again:
+ * {@link #LINES} compares hashes first and confirms a match byte by byte.
+ * Line text is decoded only when asked for.</p>
+ */
+final class MappedBlob extends Sequence implements AutoCloseable {
+    /** Lines are equal when their bytes are, terminator included, as with JGit's default comparator. */
+    static final SequenceComparator<MappedBlob> LINES = new SequenceComparator<>() {
+        @Override
+        public boolean equals(MappedBlob a, int ai, MappedBlob b, int bi) {
+            return a.hashes.get(ai) == b.hashes.get(bi) && a.sameBytes(ai, b, bi);
+        }
+
+        @Override
+        public int hash(MappedBlob seq, int ptr) {
+            return seq.hashes.get(ptr);
+        }
+    };
+
+    /** Blobs up to this size are kept on the heap instead of being spooled to disk. */
+    static final int HEAP_LIMIT = 1 << 20;
+
+    /** Longest line prefix decoded for display, in bytes; minified files are cut here. */
+    static final int MAX_LINE_BYTES = 4096;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer content;
+    private final Path spool;
+    private final boolean binary;
+    // start offset of each line, plus the content length as a sentinel
+    private final int[] lineStarts;
+    private final int lines;
+    private final StreamedBlobs.LineHashes hashes;
+
+    private MappedBlob(ByteBuffer content, Path spool) {
+        this.content = content;
+        this.spool = spool;
+        int size = content.limit();
+        boolean nul = false;
+        for (int i = 0, n = Math.min(size, StreamedBlobs.BINARY_SNIFF_LENGTH); i < n && !nul; i++) {
+            nul = content.get(i) == 0;
+        }
+        this.binary = nul;
+        this.hashes = new StreamedBlobs.LineHashes();
+        int[] starts = new int[1024];
+        int count = 0;
+        if (!binary && size > 0) {
+            int hash = StreamedBlobs.HASH_SEED;
+            starts[count++] = 0;
+            for (int i = 0; i < size; i++) {
+                byte b = content.get(i);
+                if (b == '\n') {
+                    hashes.add(hash);
+                    hash = StreamedBlobs.HASH_SEED;
+                    if (i + 1 < size) {
+                        if (count == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                        }
+                        starts[count++] = i + 1;
+                    }
+                } else {
+                    hash = StreamedBlobs.hash(hash, b);
+                }
+            }
+            if (content.get(size - 1) != '\n') {
+                hashes.add(hash);
+            }
+        }
+        this.lines = count;
+        this.lineStarts = Arrays.copyOf(starts, count + 1);
+        this.lineStarts[count] = size;
+    }
+
+    /**
+     * Read a blob for display.
+     *
+     * @param reader the reader to load the blob through
+     * @param id the blob; the zero id (the missing side of an add or delete) yields an empty blob
+     * @return the indexed blob, to be closed when no longer displayed
+     * @throws IOException if the blob cannot be read or is larger than 2 GiB
+     */
+    static MappedBlob open(ObjectReader reader, AnyObjectId id) throws IOException {
+        if (ObjectId.zeroId().equals(id)) {
+            return new MappedBlob(ByteBuffer.allocate(0), null);
+        }
+        ObjectLoader loader = reader.open(id);
+        long size = loader.getSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Blob " + id.name() + " is too large to display");
+        }
+        if (size <= HEAP_LIMIT) {
+            return new MappedBlob(ByteBuffer.wrap(loader.getCachedBytes()), null);
+        }
+        Path spool = Files.createTempFile("gitgui-blob", ".tmp");
+        try {
+            try (ObjectStream in = loader.openStream();
+                 FileChannel out = FileChannel.open(spool, StandardOpenOption.WRITE)) {
+                byte[] buf = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buf, 0, n);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+            }
+            ByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(spool, StandardOpenOption.READ)) {
+                // the mapping stays valid after the channel is closed
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return new MappedBlob(mapped, spool);
+        } catch (IOException | RuntimeException e) {
+            deleteSpool(spool);
+            throw e;
+        }
+    }
+
+    /** @return whether the blob looks binary; binary blobs have no lines */
+    boolean isBinary() {
+        return binary;
+    }
+
+    /** @return the number of lines, a trailing line without newline included */
+    int lineCount() {
+        return lines;
+    }
+
+    @Override
+    public int size() {
+        return lines;
+    }
+
+    /** A hash collision must not pair two different lines, so matching hashes are confirmed here. */
+    private boolean sameBytes(int line, MappedBlob other, int otherLine) {
+        int start = lineStarts[line];
+        int length = lineStarts[line + 1] - start;
+        int otherStart = other.lineStarts[otherLine];
+        return length == other.lineStarts[otherLine + 1] - otherStart
+                && content.slice(start, length).mismatch(other.content.slice(otherStart, length)) == -1;
+    }
+
+    /**
+     * Decode one line, without its line terminator. Lines longer than
+     * {@link #MAX_LINE_BYTES} are cut and end with an ellipsis.
+     *
+     * @param line the zero-based line number
+     * @return the line text
+     */
+    String line(int line) {
+        int start = lineStarts[line];
+        int end = lineStarts[line + 1];
+        if (end > start && content.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && content.get(end - 1) == '\r') {
+            end--;
+        }
+        boolean cut = end - start > MAX_LINE_BYTES;
+        byte[] bytes = new byte[cut ? MAX_LINE_BYTES : end - start];
+        content.get(start, bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return cut ? text + "…" : text;
+    }
+
+    /**
+     * Delete the spool file, if any. The mapping itself is released by the
+     * garbage collector; on platforms that refuse to delete mapped files the
+     * file is removed at exit instead.
+     */
+    @Override
+    public void close() {
+        if (spool != null) {
+            deleteSpool(spool);
+        }
+    }
+
+    private static void deleteSpool(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            spool.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.engine.QualityEngine.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Scores many repositories concurrently for the project dashboard.
+ *
+ * <p>Every repository is scored on its own virtual thread from
+ * {@link RepositoryExecutor}, and a semaphore lets at most
+ * {@code maxConcurrency} of them diff at the same time. Each result is handed to the callback as
+ * soon as that repository finishes, so a slow monorepo never holds back the
+ * cards of small services. A repository whose previous computation is still
+ * running is skipped rather than queued twice, which keeps periodic refreshes
+ * from piling up behind a slow scorer.</p>
+ *
+ * <p>A repository that is missing or cannot be opened is reported to a
+ * separate callback rather than scored, because scoring it would yield an
+ * empty diff and therefore a perfect rating. While the scorer is open it
+ * reserves one {@link RepositoryPool} entry per repository, so that a refresh
+ * round does not evict the others' warm repositories.</p>
+ */
+public final class MultiRepoScorer implements AutoCloseable {
+    private final Semaphore permits;
+    private final ScheduledExecutorService scheduler;
+    private final BiConsumer<File, Result> onResult;
+    private final BiConsumer<File, IOException> onError;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private ScheduledFuture<?> refresh;
+
+    /**
+     * Create a scorer.
+     *
+     * @param maxConcurrency maximum number of repositories scored at once
+     * @param onResult invoked on a worker thread with each repository and its result
+     * @param onError invoked on a worker thread with each repository that could not be opened
+     */
+    public MultiRepoScorer(int maxConcurrency, BiConsumer<File, Result> onResult,
+                           BiConsumer<File, IOException> onError) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dashboard-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.onResult = onResult;
+        this.onError = onError;
+    }
+
+    /**
+     * Queue every repository for scoring. Repositories still being scored from
+     * an earlier call are skipped.
+     *
+     * @param repos the repositories to score
+     */
+    public void scoreAll(List<File> repos) {
+        if (!closed) {
+            RepositoryPool.setReservedEntries(repos.size());
+        }
+        for (File repo : repos) {
+            String key = repo.getAbsolutePath();
+            if (closed || !inFlight.add(key)) {
+                continue;
+            }
+            RepositoryExecutor.execute(() -> {
+                try {
+                    permits.acquireUninterruptibly();
+                    try {
+                        if (!closed) {
+                            score(repo);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        }
+    }
+
+    private void score(File repo) {
+        try {
+            RepositoryPool.requireWorkTree(repo);
+        } catch (IOException e) {
+            onError.accept(repo, e);
+            return;
+        }
+        onResult.accept(repo, QualityEngine.calculateQuality(repo));
+    }
+
+    /**
+     * Rescore the repositories returned by {@code repos} every {@code periodMillis},
+     * starting immediately. Replaces any earlier schedule.
+     *
+     * @param repos supplies the current repository list on each refresh
+     * @param periodMillis delay between refreshes in milliseconds
+     */
+    public synchronized void scheduleRefresh(Supplier<List<File>> repos, long periodMillis) {
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+        refresh = scheduler.scheduleWithFixedDelay(() -> scoreAll(repos.get()), 0, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop refreshing, abandon queued work and give back the reserved pool
+     * entries. Computations already running finish in the background and their
+     * results are still delivered; they are not interrupted, because an
+     * interrupt during pack file I/O makes JGit drop the pack from the shared,
+     * pooled repository.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        RepositoryPool.setReservedEntries(0);
+    }
+
+    /**
+     * Find the Git repositories directly below a workspace directory.
+     *
+     * @param workspaceRoot a directory holding one checkout per subdirectory
+     * @return the subdirectories containing a {@code .git} entry, sorted by name
+     */
+    public static List<File> discoverRepositories(File workspaceRoot) {
+        List<File> repos = new ArrayList<>();
+        File[] children = workspaceRoot == null ? null : workspaceRoot.listFiles(File::isDirectory);
+        if (children == null) {
+            return repos;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (new File(child, ".git").exists()) {
+                repos.add(child);
+            }
+        }
+        return repos;
+    }
+}
@@ -0,0 +1,124 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Counts insertions and deletions of a large list of diff entries on several
+ * virtual threads.
+ *
+ * <p>The entries are cut into contiguous ranges that a fixed number of workers
+ * take from a shared cursor, so a worker that drew a range of small files
+ * simply takes the next one while another is still diffing a large file. Every
+ * worker has its own {@link BatchBlobReader} and {@link DiffFormatter}, since
+ * neither is thread safe; the reader loads the blobs of each range in storage
+ * order before they are diffed. The per-worker counts are summed once all have
+ * finished. Addition is order independent, so the totals are identical to the
+ * serial loop in {@link QualityEngine}. The workers run in a
+ * {@link RepositoryExecutor.Scope}: when one fails, the others stop at their
+ * next file.</p>
+ */
+final class ParallelDiffStats {
+    /** Smallest range worth taking from the cursor at once. */
+    private static final int MIN_RANGE_SIZE = 64;
+
+    private ParallelDiffStats() {}
+
+    /**
+     * Count the edits of {@code diffs} using up to {@code parallelism} workers.
+     *
+     * @param repository the repository the entries were computed from
+     * @param diffs the staged diff entries
+     * @param parallelism maximum number of worker threads
+     * @param cancelled polled by every worker between files
+     * @param rules the rules weighting each file
+     * @param breakdown receives each file's result as soon as it is known, or {@code null}
+     * @return a three-element array of insertions, deletions and the weighted score in thousandths
+     * @throws IOException if a blob cannot be read
+     * @throws CancellationException if {@code cancelled} reported {@code true}
+     */
+    static long[] count(Repository repository, List<DiffEntry> diffs, int parallelism, BooleanSupplier cancelled,
+                        ScoringRules rules, FileBreakdown breakdown) throws IOException {
+        int rangeSize = Math.max(MIN_RANGE_SIZE, diffs.size() / (parallelism * 4));
+        int workers = Math.min(parallelism, (diffs.size() + rangeSize - 1) / rangeSize);
+        AtomicInteger cursor = new AtomicInteger();
+        List<Future<long[]>> counts = new ArrayList<>(workers);
+        try (RepositoryExecutor.Scope scope = new RepositoryExecutor.Scope()) {
+            BooleanSupplier stop = () -> cancelled.getAsBoolean() || scope.isFailed();
+            for (int w = 0; w < workers; w++) {
+                counts.add(scope.fork(() -> countRanges(repository, diffs, cursor, rangeSize, stop, rules,
+                        breakdown)));
+            }
+            scope.join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while counting edits");
+        }
+        long[] total = new long[3];
+        for (Future<long[]> worker : counts) {
+            long[] c = worker.resultNow();
+            total[0] += c[0];
+            total[1] += c[1];
+            total[2] += c[2];
+        }
+        return total;
+    }
+
+    /** Count ranges taken from {@code cursor} until none are left, yielding insertions, deletions and score. */
+    private static long[] countRanges(Repository repository, List<DiffEntry> diffs, AtomicInteger cursor,
+                                      int rangeSize, BooleanSupplier stop, ScoringRules rules,
+                                      FileBreakdown breakdown) throws IOException {
+        long insertions = 0;
+        long deletions = 0;
+        long scoreMillis = 0;
+        try (BatchBlobReader reader = new BatchBlobReader(repository);
+             DiffFormatter formatter = QualityEngine.newFormatter()) {
+            formatter.setReader(reader, repository.getConfig());
+            int from;
+            while ((from = cursor.getAndAdd(rangeSize)) < diffs.size()) {
+                int to = Math.min(from + rangeSize, diffs.size());
+                for (int i = from; i < to; i++) {
+                    if (stop.getAsBoolean()) {
+                        throw new CancellationException("Superseded by a newer quality request");
+                    }
+                    if ((i - from) % BatchBlobReader.BATCH_ENTRIES == 0) {
+                        reader.prefetch(diffs.subList(i, Math.min(i + BatchBlobReader.BATCH_ENTRIES, to)), true);
+                    }
+                    DiffEntry diff = diffs.get(i);
+                    int[] counts = QualityEngine.countEdits(formatter, reader, diff);
+                    String path = QualityEngine.path(diff);
+                    long fileMillis = rules.fileScoreMillis(path, counts[0], counts[1]);
+                    insertions += counts[0];
+                    deletions += counts[1];
+                    scoreMillis += fileMillis;
+                    if (breakdown != null) {
+                        breakdown.add(path, QualityEngine.oldPath(diff), diff.getChangeType(), counts[0],
+                                counts[1], fileMillis);
+                    }
+                }
+            }
+        }
+        return new long[] {insertions, deletions, scoreMillis};
+    }
+}
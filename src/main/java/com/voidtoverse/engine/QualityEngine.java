@@ -1,22 +1,58 @@
 package com.voidtoverse.engine;
 
+import com.voidtoverse.diagnostics.Metrics;
+import com.voidtoverse.diagnostics.ScoringEvent;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryBuilder;
 import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.eclipse.jgit.util.io.NullOutputStream;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 /**
  * Computes commit quality scores based on the size of staged changes.
  *
  * <p>The scoring formula is defined by the project specification: lines added
  * plus lines removed plus five times the number of files changed【61889244827154†L18-L29】.</p>
+ *
+ * <p>Timings of the JGit calls and of whole scoring runs are recorded in
+ * {@link Metrics}.</p>
  */
 public final class QualityEngine {
+    /**
+     * Version of the scoring formula. Bump it whenever {@link #rawScore} or the
+     * way edits are counted changes, so that persisted scores are discarded.
+     */
+    public static final int FORMULA_VERSION = 2;
+
+    /** Minimum number of staged files before the diff is split across workers. */
+    static final int PARALLEL_THRESHOLD = 512;
+
+    private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private static volatile int largeFileThreshold = PackConfig.DEFAULT_BIG_FILE_THRESHOLD;
+
+    /** What {@link #estimateQuality} reports when it cannot read the index. */
+    private static final Estimate UNKNOWN_ESTIMATE = new Estimate(0, Integer.MAX_VALUE);
+
     private QualityEngine() {}
 
     /**
@@ -25,61 +61,469 @@ public final class QualityEngine {
         public record Result(int quality, int score) {
     }
 
+    /**
+     * Bounds on the raw score obtained from line counts alone, without diffing.
+     *
+     * <p>For a modified file the real change lies somewhere between the difference
+     * in line counts and the sum of both line counts; added and deleted files are
+     * exact. Once the lower bound reaches 100 the quality is known to be 0 and the
+     * remaining files are not examined, so {@code maxScore} is only meaningful
+     * below that point.</p>
+     *
+     * @param minScore the smallest raw score consistent with the line counts
+     * @param maxScore the largest raw score consistent with the line counts
+     */
+    public record Estimate(int minScore, int maxScore) {
+        /** @return the quality if the change is as small as the line counts allow */
+        public int bestQuality() {
+            return toQuality(minScore);
+        }
+
+        /** @return the quality if every line of a modified file changed */
+        public int worstQuality() {
+            return toQuality(maxScore);
+        }
+
+        /**
+         * @return {@code true} if both bounds fall into the same {@link QualityDescriptor}
+         *         band, in which case an exact diff would not change the verdict
+         */
+        public boolean isConclusive() {
+            return QualityDescriptor.describe(bestQuality())[0].equals(QualityDescriptor.describe(worstQuality())[0]);
+        }
+    }
+
     /**
      * Compute diff statistics for staged changes using the JGit library.
      *
-     * <p>The returned array contains the number of files changed, insertions and deletions.
+     * <p>The returned array contains the number of files changed, insertions, deletions and
+     * the score under the repository's {@link ScoringRules} in thousandths of a point.
+     * Moved and copied files are scored as one renamed or copied file, see
+     * {@link #stagedChanges}.
      * If JGit fails to compute the diff (e.g. repository not found or other errors), the
-     * statistics will be zeroed.</p>
+     * statistics will be zeroed. Edit counts are looked up in {@link EditCountCache} by
+     * the (HEAD blob, index blob) pair first, so a recalculation only diffs the files
+     * whose staged content changed since the previous call. Very large staged sets are
+     * handed to {@link ParallelDiffStats}. The blobs of the remaining files are read
+     * {@value BatchBlobReader#BATCH_ENTRIES} files at a time in the order they are
+     * stored, through a {@link BatchBlobReader}. When neither the index, HEAD nor the rules
+     * changed since the previous call, its statistics are returned from the
+     * {@link StagedSnapshot} without listing the staged files at all.</p>
      *
      * @param repo the repository directory
-     * @return an array where index 0 is files changed, 1 is insertions, 2 is deletions
+     * @param cancelled polled before each file; when it returns {@code true} the computation stops
+     * @param rules the rules weighting each file
+     * @param breakdown receives each file's result as soon as it is known, and whether rename detection fell
+     *                  short, or {@code null}
+     * @return an array where index 0 is files changed, 1 is insertions, 2 is deletions, 3 is the score in
+     *         thousandths
+     * @throws CancellationException if {@code cancelled} reported {@code true}
      */
-    private static int[] parseDiffStats(File repo) {
-        int[] stats = new int[] {0, 0, 0};
+    private static long[] parseDiffStats(File repo, BooleanSupplier cancelled, ScoringRules rules,
+                                         FileBreakdown breakdown) {
+        long[] stats = new long[] {0, 0, 0, 0};
         if (repo == null) {
             return stats;
         }
-        try {
-            // Open the repository using JGit
-            Git git = Git.open(repo);
-            // Obtain the list of diffs between HEAD and the index (staged changes)
-            List<DiffEntry> diffs = git.diff().setCached(true).call();
-            // Prepare a DiffFormatter to compute insertions and deletions per file
-            DiffFormatter formatter = new DiffFormatter(new java.io.ByteArrayOutputStream());
-            formatter.setRepository(git.getRepository());
-            int files = 0;
-            int insertions = 0;
-            int deletions = 0;
-            for (DiffEntry diff : diffs) {
-                files++;
-                try {
-                    FileHeader header = formatter.toFileHeader(diff);
-                    EditList edits = header.toEditList();
-                    for (org.eclipse.jgit.diff.Edit edit : edits) {
-                        insertions += edit.getEndB() - edit.getBeginB();
-                        deletions += edit.getEndA() - edit.getBeginA();
+        // Borrow a warm repository from the pool rather than opening it from scratch
+        try (Repository repository = RepositoryPool.open(repo); Git git = Git.wrap(repository)) {
+            // a run that reports rows has to diff every file, so only plain scoring reuses a snapshot
+            StagedSnapshot.Stamp stamp = breakdown == null ? StagedSnapshot.stamp(repository, rules) : null;
+            long[] snapshot = stamp == null ? null : StagedSnapshot.get(repo, stamp);
+            if (snapshot != null) {
+                Metrics.SNAPSHOT_HITS.incrementAndGet();
+                return snapshot;
+            }
+            StagedRenames.Changes changes = stagedChanges(repository, git, rules, cancelled);
+            List<DiffEntry> diffs = changes.entries();
+            if (breakdown != null && changes.unpaired() > 0) {
+                breakdown.setUnpaired(changes.unpaired());
+            }
+            int files = diffs.size();
+            long insertions = 0;
+            long deletions = 0;
+            long scoreMillis = 0;
+            if (files >= PARALLEL_THRESHOLD && parallelism > 1) {
+                // Spread huge staged sets (vendoring drops, generated code) across cores
+                long[] counts = ParallelDiffStats.count(repository, diffs, parallelism, cancelled, rules,
+                        breakdown);
+                insertions = counts[0];
+                deletions = counts[1];
+                scoreMillis = counts[2];
+            } else {
+                // Prepare a DiffFormatter to compute insertions and deletions per file
+                try (BatchBlobReader reader = new BatchBlobReader(repository);
+                     DiffFormatter formatter = newFormatter()) {
+                    formatter.setReader(reader, repository.getConfig());
+                    for (int from = 0; from < files; from += BatchBlobReader.BATCH_ENTRIES) {
+                        List<DiffEntry> batch = diffs.subList(from, Math.min(from + BatchBlobReader.BATCH_ENTRIES,
+                                files));
+                        reader.prefetch(batch, true);
+                        for (DiffEntry diff : batch) {
+                            if (cancelled.getAsBoolean()) {
+                                throw new CancellationException("Superseded by a newer quality request");
+                            }
+                            int[] counts = countEdits(formatter, reader, diff);
+                            String path = path(diff);
+                            long fileMillis = rules.fileScoreMillis(path, counts[0], counts[1]);
+                            insertions += counts[0];
+                            deletions += counts[1];
+                            scoreMillis += fileMillis;
+                            if (breakdown != null) {
+                                breakdown.add(path, oldPath(diff), diff.getChangeType(), counts[0], counts[1],
+                                        fileMillis);
+                            }
+                        }
                     }
-                } catch (LargeObjectException e) {
-                    // Skip large objects but count the file itself
                 }
             }
-            formatter.close();
-            git.close();
             stats[0] = files;
             stats[1] = insertions;
             stats[2] = deletions;
+            stats[3] = scoreMillis;
+            if (stamp != null) {
+                StagedSnapshot.put(repo, stamp, stats);
+            }
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
-            // ignore and leave stats zeroed
+            // leave stats zeroed, but keep a trace for the diagnostics window
+            Metrics.recordFailure(e);
         }
         return stats;
     }
 
+    /**
+     * List the entries that differ between HEAD and the index.
+     *
+     * <p>Only names and change types are requested. Without
+     * {@code setShowNameAndStatusOnly} the diff command formats every patch into
+     * a discarded stream, diffing all staged files a second time.</p>
+     *
+     * @param git the repository to inspect
+     * @return the staged diff entries
+     * @throws GitAPIException if the index or HEAD cannot be read
+     */
+    static List<DiffEntry> stagedDiffs(Git git) throws GitAPIException {
+        long start = System.nanoTime();
+        List<DiffEntry> diffs = git.diff().setCached(true).setShowNameAndStatusOnly(true).call();
+        Metrics.DIFF_LIST.recordSince(start);
+        return diffs;
+    }
+
+    /**
+     * List the staged changes the way they are scored: moved and copied files
+     * are paired by {@link StagedRenames} according to the repository's rules.
+     *
+     * @param repository the repository to inspect
+     * @param git a wrapper around {@code repository}
+     * @param rules the rules deciding how far renames are detected
+     * @param cancelled polled while file contents are compared
+     * @return the staged entries after rename detection
+     * @throws GitAPIException if the index or HEAD cannot be read
+     * @throws IOException if a blob cannot be read
+     * @throws CancellationException if {@code cancelled} reported {@code true}
+     */
+    static StagedRenames.Changes stagedChanges(Repository repository, Git git, ScoringRules rules,
+                                               BooleanSupplier cancelled) throws GitAPIException, IOException {
+        List<DiffEntry> staged = stagedDiffs(git);
+        // blobs compared here land in the blob cache, so diffing a pair afterwards does not read them again
+        try (BatchBlobReader reader = new BatchBlobReader(repository)) {
+            return StagedRenames.detect(repository, reader, staged, rules, cancelled);
+        }
+    }
+
+    /**
+     * The path a diff entry is scored under: the new path, or the old one for deletions.
+     *
+     * @param diff the entry
+     * @return the repository-relative path
+     */
+    static String path(DiffEntry diff) {
+        return diff.getChangeType() == DiffEntry.ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath();
+    }
+
+    /**
+     * The path a diff entry had in the old tree: the old path, or the new one for additions.
+     *
+     * @param diff the entry
+     * @return the repository-relative path
+     */
+    static String oldPath(DiffEntry diff) {
+        return diff.getChangeType() == DiffEntry.ChangeType.ADD ? diff.getNewPath() : diff.getOldPath();
+    }
+
+    /**
+     * Count the lines inserted and deleted by a single diff entry.
+     *
+     * <p>An entry whose sides are the same blob, such as a file moved without
+     * changes, counts nothing. Counts of blob pairs diffed by an earlier
+     * recalculation are reused from {@link EditCountCache}; anything else is
+     * diffed by {@link #diffEdits} and remembered.</p>
+     *
+     * @param formatter a formatter bound to the repository the entry belongs to
+     * @param reader the reader backing {@code formatter}
+     * @param diff the entry to count
+     * @return a two‑element array of insertions and deletions
+     * @throws IOException if the blobs cannot be read
+     */
+    static int[] countEdits(DiffFormatter formatter, ObjectReader reader, DiffEntry diff) throws IOException {
+        if (diff.getOldId().isComplete() && diff.getOldId().equals(diff.getNewId())) {
+            // a pure rename or copy, or a mode change: nothing to diff
+            return new int[] {0, 0};
+        }
+        boolean cacheable = diff.getOldId().isComplete() && diff.getNewId().isComplete();
+        int[] cached = cacheable
+                ? EditCountCache.get(diff.getOldId().toObjectId(), diff.getNewId().toObjectId())
+                : null;
+        if (cached != null) {
+            Metrics.EDIT_CACHE_HITS.incrementAndGet();
+            return cached;
+        }
+        int[] counts = diffEdits(formatter, reader, diff);
+        if (cacheable) {
+            EditCountCache.put(diff.getOldId().toObjectId(), diff.getNewId().toObjectId(), counts[0], counts[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Create a formatter that only counts edits. Blobs above the
+     * {@link #setLargeFileThreshold large file threshold} are not loaded by it;
+     * {@link #diffEdits} streams them instead.
+     *
+     * @return a formatter writing nowhere, not yet bound to a reader
+     */
+    static DiffFormatter newFormatter() {
+        DiffFormatter formatter = new DiffFormatter(NullOutputStream.INSTANCE);
+        formatter.setBinaryFileThreshold(largeFileThreshold);
+        return formatter;
+    }
+
+    /**
+     * Diff a single entry without consulting any cache.
+     *
+     * <p>The formatter reports a blob above its size threshold as binary, with
+     * no edits. When neither side actually looks binary, the entry is diffed
+     * again by streaming line hashes through {@link StreamedBlobs}, so a huge
+     * text file counts its lines instead of only the per-file penalty.</p>
+     *
+     * @param formatter a formatter bound to the repository the entry belongs to
+     * @param reader the reader backing {@code formatter}
+     * @param diff the entry to diff
+     * @return a two‑element array of insertions and deletions
+     * @throws IOException if the blobs cannot be read
+     */
+    static int[] diffEdits(DiffFormatter formatter, ObjectReader reader, DiffEntry diff) throws IOException {
+        long start = System.nanoTime();
+        int insertions = 0;
+        int deletions = 0;
+        boolean stream;
+        try {
+            FileHeader header = formatter.toFileHeader(diff);
+            EditList edits = header.toEditList();
+            for (org.eclipse.jgit.diff.Edit edit : edits) {
+                insertions += edit.getEndB() - edit.getBeginB();
+                deletions += edit.getEndA() - edit.getBeginA();
+            }
+            // binary here also means larger than the formatter's threshold
+            stream = header.getPatchType() == FileHeader.PatchType.BINARY && isText(reader, diff);
+        } catch (LargeObjectException e) {
+            // Too big to load at once
+            stream = true;
+        }
+        if (stream && diff.getOldId().isComplete() && diff.getNewId().isComplete()) {
+            Metrics.LARGE_OBJECT_FALLBACKS.incrementAndGet();
+            int[] counts = StreamedBlobs.diffLines(reader, diff.getOldId().toObjectId(),
+                    diff.getNewId().toObjectId());
+            insertions = counts[0];
+            deletions = counts[1];
+        }
+        Metrics.FILE_EDITS.recordSince(start);
+        return new int[] {insertions, deletions};
+    }
+
+    /**
+     * Count the lines of one side of an entry for an estimate. A submodule is
+     * compared as its single {@code Subproject commit} line, like the diff does,
+     * and its commit is not looked up: it lives in the submodule's repository.
+     */
+    private static int countLines(ObjectReader reader, FileMode mode, ObjectId id) throws IOException {
+        if (mode == FileMode.GITLINK) {
+            return 1;
+        }
+        if (mode != FileMode.MISSING && mode.getObjectType() != Constants.OBJ_BLOB) {
+            return 0;
+        }
+        return StreamedBlobs.countLines(reader, id);
+    }
+
+    /** @return whether both sides of an entry are blobs, or missing, that do not look binary */
+    private static boolean isText(ObjectReader reader, DiffEntry diff) throws IOException {
+        ObjectId oldId = diff.getOldId().isComplete() ? diff.getOldId().toObjectId() : null;
+        ObjectId newId = diff.getNewId().isComplete() ? diff.getNewId().toObjectId() : null;
+        return isText(reader, diff.getOldMode(), oldId) && isText(reader, diff.getNewMode(), newId);
+    }
+
+    private static boolean isText(ObjectReader reader, FileMode mode, ObjectId id) throws IOException {
+        if (mode == FileMode.MISSING) {
+            return true;
+        }
+        return id != null && mode.getObjectType() == Constants.OBJ_BLOB && !StreamedBlobs.isBinary(reader, id);
+    }
+
+    /**
+     * Load and initialise the JGit classes a scoring run needs, without touching
+     * a repository.
+     *
+     * <p>The first scoring run of a process otherwise spends most of its time in
+     * class loading and static initialisation. Running this on a background
+     * thread while the user is still looking at the window moves that cost out
+     * of the first score.</p>
+     */
+    static void warmUp() {
+        new RepositoryBuilder().setMustExist(false);
+        RawText a = new RawText("a\nb\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        RawText b = new RawText("a\nc\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        new HistogramDiff().diff(RawTextComparator.DEFAULT, a, b);
+        try (DiffFormatter formatter = new DiffFormatter(NullOutputStream.INSTANCE)) {
+            formatter.setDetectRenames(false);
+        }
+        ObjectId.zeroId().name();
+    }
+
+    /**
+     * Set the size above which blobs are diffed by streaming instead of being
+     * loaded whole.
+     *
+     * <p>Streaming keeps one {@code int} per line in memory rather than the
+     * whole content. The default is JGit's big file threshold of 50 MiB.</p>
+     *
+     * @param bytes the threshold in bytes, at least 1
+     */
+    public static void setLargeFileThreshold(int bytes) {
+        largeFileThreshold = Math.max(1, bytes);
+    }
+
+    /**
+     * Set how many threads may diff staged files concurrently.
+     *
+     * <p>Staged sets of at least {@value #PARALLEL_THRESHOLD} files are split
+     * across this many workers; smaller sets and a value of {@code 1} use the
+     * serial path. Both paths produce identical results.</p>
+     *
+     * @param threads the parallelism level, at least 1
+     */
+    public static void setParallelism(int threads) {
+        parallelism = Math.max(1, threads);
+    }
+
+    /**
+     * Set how many bytes of blob content are kept between scoring runs.
+     *
+     * <p>The {@link BlobCache} is shared by staged and history scoring. It holds
+     * 64 MiB unless changed here.</p>
+     *
+     * @param bytes the budget in bytes; {@code 0} disables the cache
+     */
+    public static void setBlobCacheSize(long bytes) {
+        BlobCache.setMaxBytes(bytes);
+    }
+
+    /**
+     * Estimate the quality of the staged changes from line counts only.
+     *
+     * <p>Blobs are streamed through {@link StreamedBlobs#countLines} instead of
+     * being diffed, which makes this much cheaper than {@link #calculateQuality}
+     * on large indexes. Files whose exact counts are already in
+     * {@link EditCountCache} contribute those counts. Callers can show the
+     * estimate right away and only run the exact computation when
+     * {@link Estimate#isConclusive()} is {@code false}. Errors yield an
+     * estimate spanning every quality, which is never conclusive. Both bounds are
+     * weighted by the repository's {@link ScoringRules}. Files moved without
+     * changes count as renames; an added or deleted file that rename detection
+     * might still pair with another contributes nothing to the lower bound. If
+     * the exact score of the current index is still in the
+     * {@link StagedSnapshot}, both bounds equal it.</p>
+     *
+     * @param repo the repository directory
+     * @param cancelled polled between files; returning {@code true} aborts the estimate
+     * @return bounds on the raw score
+     * @throws CancellationException if the estimate was aborted
+     */
+    public static Estimate estimateQuality(File repo, BooleanSupplier cancelled) {
+        if (repo == null) {
+            return new Estimate(0, 0);
+        }
+        long start = System.nanoTime();
+        ScoringRules rules = ScoringRules.forRepository(repo);
+        long minMillis = 0;
+        long maxMillis = 0;
+        try (Repository repository = RepositoryPool.open(repo); Git git = Git.wrap(repository);
+             ObjectReader reader = repository.newObjectReader()) {
+            long[] snapshot = StagedSnapshot.get(repo, StagedSnapshot.stamp(repository, rules));
+            if (snapshot != null) {
+                // the exact score of this very index is already known
+                Metrics.SNAPSHOT_HITS.incrementAndGet();
+                int score = ScoringRules.toScore(snapshot[3]);
+                return new Estimate(score, score);
+            }
+            List<DiffEntry> diffs = StagedRenames.pairUnchanged(repository, reader, stagedDiffs(git), rules);
+            // an added or deleted file may still turn out to be half of a rename with edits
+            boolean mayPair = StagedRenames.mayCompareContents(diffs, rules)
+                    && !StagedRenames.isOverLimit(diffs, rules);
+            for (DiffEntry diff : diffs) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Superseded by a newer quality request");
+                }
+                if (ScoringRules.toScore(minMillis) >= 100) {
+                    // quality is already 0 whatever the remaining files contain
+                    break;
+                }
+                String path = path(diff);
+                if (!diff.getOldId().isComplete() || !diff.getNewId().isComplete()
+                        || diff.getOldId().equals(diff.getNewId())) {
+                    minMillis += rules.fileScoreMillis(path, 0, 0);
+                    maxMillis += rules.fileScoreMillis(path, 0, 0);
+                    continue;
+                }
+                ObjectId oldId = diff.getOldId().toObjectId();
+                ObjectId newId = diff.getNewId().toObjectId();
+                boolean pairable = mayPair && (diff.getChangeType() == DiffEntry.ChangeType.ADD
+                        || diff.getChangeType() == DiffEntry.ChangeType.DELETE);
+                int[] cached = EditCountCache.get(oldId, newId);
+                if (cached != null) {
+                    if (!pairable) {
+                        minMillis += rules.fileScoreMillis(path, cached[0], cached[1]);
+                    }
+                    maxMillis += rules.fileScoreMillis(path, cached[0], cached[1]);
+                    continue;
+                }
+                int oldLines = countLines(reader, diff.getOldMode(), oldId);
+                int newLines = countLines(reader, diff.getNewMode(), newId);
+                if (!pairable) {
+                    minMillis += rules.fileScoreMillis(path, Math.abs(newLines - oldLines), 0);
+                }
+                maxMillis += rules.fileScoreMillis(path, oldLines, newLines);
+            }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            // unlike a score, an estimate can admit it knows nothing, so that the exact path runs
+            Metrics.recordFailure(e);
+            return UNKNOWN_ESTIMATE;
+        }
+        Metrics.ESTIMATE_TOTAL.recordSince(start);
+        int minScore = ScoringRules.toScore(minMillis);
+        return new Estimate(minScore, Math.max(minScore, ScoringRules.toScore(maxMillis)));
+    }
+
     /**
      * Compute a quality score for the staged changes in the given repository.
      *
      * <p>The raw score is calculated as the sum of insertions, deletions and
-     * five times the number of files changed. A quality percentage is then
+     * five times the number of files changed, with each file weighted and capped
+     * by the repository's {@link ScoringRules}. A quality percentage is then
      * derived by subtracting the raw score from 100 and clamping the result
      * between 0 and 100.</p>
      *
@@ -87,17 +531,101 @@ public final class QualityEngine {
      * @return a {@link Result} containing both quality percentage and raw score
      */
     public static Result calculateQuality(File repo) {
-        int[] stats = parseDiffStats(repo);
-        int filesChanged = stats[0];
-        int insertions = stats[1];
-        int deletions = stats[2];
-        int score = insertions + deletions + (filesChanged * 5);
+        return calculateQuality(repo, () -> false);
+    }
+
+    /**
+     * Compute a quality score for the staged changes, giving up early when asked to.
+     *
+     * <p>Used by {@link ScoringService} to abandon a computation that has been
+     * superseded by a newer request.</p>
+     *
+     * @param repo the repository directory
+     * @param cancelled polled between files; returning {@code true} aborts the computation
+     * @return a {@link Result} containing both quality percentage and raw score
+     * @throws CancellationException if the computation was aborted
+     */
+    public static Result calculateQuality(File repo, BooleanSupplier cancelled) {
+        return calculateQuality(repo, cancelled, null);
+    }
+
+    /**
+     * Compute a quality score for the staged changes and report every file's
+     * share of it while the computation runs.
+     *
+     * <p>Each staged file is appended to {@code breakdown} as soon as it has been
+     * diffed, so a view polling it can show the files that hurt the score most
+     * before a large index has been fully scored. Files are reported in diff
+     * order, or in no particular order when the diff runs in parallel.</p>
+     *
+     * @param repo the repository directory
+     * @param cancelled polled between files; returning {@code true} aborts the computation
+     * @param breakdown receives one row per staged file, or {@code null}
+     * @return a {@link Result} containing both quality percentage and raw score
+     * @throws CancellationException if the computation was aborted
+     */
+    public static Result calculateQuality(File repo, BooleanSupplier cancelled, FileBreakdown breakdown) {
+        long start = System.nanoTime();
+        ScoringEvent event = new ScoringEvent();
+        event.begin();
+        long[] stats = parseDiffStats(repo, cancelled, ScoringRules.forRepository(repo), breakdown);
+        int filesChanged = (int) stats[0];
+        int insertions = (int) stats[1];
+        int deletions = (int) stats[2];
+        int score = ScoringRules.toScore(stats[3]);
+        Metrics.SCORE_TOTAL.recordSince(start);
+        if (event.shouldCommit()) {
+            event.repository = repo == null ? null : repo.getPath();
+            event.files = filesChanged;
+            event.insertions = insertions;
+            event.deletions = deletions;
+            event.score = score;
+            event.commit();
+        }
+        return new Result(toQuality(score), score);
+    }
+
+    /**
+     * Apply the specification's formula: insertions plus deletions plus five
+     * points per changed file. History scoring uses it as is; staged changes
+     * go through {@link ScoringRules}, whose defaults reproduce it.
+     *
+     * @param filesChanged number of files touched
+     * @param insertions lines added
+     * @param deletions lines removed
+     * @return the raw change score
+     */
+    static int rawScore(int filesChanged, int insertions, int deletions) {
+        return insertions + deletions + (filesChanged * 5);
+    }
+
+    /**
+     * Check whether a commit message qualifies for one of the specification's
+     * exceptions ({@code refactor:}, {@code bulk rename}, {@code initial commit}),
+     * which always receive a perfect rating. Projects can change the keywords in
+     * their configuration file; use {@link ScoringRules#isExempt} to honour it.
+     *
+     * @param message the commit message, may be {@code null}
+     * @return {@code true} if the message is exempt from size scoring
+     */
+    public static boolean isExempt(String message) {
+        return ScoringRules.DEFAULT.isExempt(message);
+    }
+
+    /**
+     * Derive the quality percentage from a raw score: 100 minus the score,
+     * clamped between 0 and 100.
+     *
+     * @param score the raw change score
+     * @return the quality percentage
+     */
+    static int toQuality(int score) {
         int quality = 100 - score;
         if (quality < 0) {
             quality = 0;
         } else if (quality > 100) {
             quality = 100;
         }
-        return new Result(quality, score);
+        return quality;
     }
 }
\ No newline at end of file
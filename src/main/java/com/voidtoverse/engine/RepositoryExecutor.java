@@ -0,0 +1,193 @@
+package com.voidtoverse.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs repository I/O on virtual threads.
+ *
+ * <p>JGit is a blocking API: reading packs, walking trees and writing the index
+ * all hold the calling thread. On virtual threads that is cheap, so rather than
+ * sizing a pool per feature every task gets a thread of its own and stays plain
+ * sequential code. Three shapes cover the application:</p>
+ *
+ * <ul>
+ *   <li>{@link #submit} and {@link #execute} run a task in the background;</li>
+ *   <li>{@link #submitExclusive} and {@link #callExclusive} also hold the
+ *       repository's lock, so two tasks that write the same index never
+ *       overlap;</li>
+ *   <li>a {@link Scope} fans work out and joins it as one unit: the subtasks
+ *       cannot outlive it, and once one fails the others see
+ *       {@link Scope#isFailed()} and stop.</li>
+ * </ul>
+ *
+ * <p>{@link Scope} has the shape of {@code StructuredTaskScope.ShutdownOnFailure},
+ * which is still a preview API in Java 21 and would need
+ * {@code --enable-preview} on every launcher. Subtasks are not interrupted on
+ * failure: an interrupt during pack file I/O makes JGit drop the pack from the
+ * shared, pooled repository, so they poll instead. Locks are
+ * {@link ReentrantLock}s because a virtual thread blocked on a monitor pins its
+ * carrier thread on Java 21.</p>
+ *
+ * <p>Work that relies on a single thread's ordering keeps its own thread: the
+ * coalescing {@link ScoringService}, each {@link CommitPager} and the watcher's
+ * debounce timer.</p>
+ */
+public final class RepositoryExecutor {
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("repository-io-", 0).factory();
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(THREADS);
+
+    // one lock per repository, keyed like RepositoryPool; the set of repositories a session touches is small
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private RepositoryExecutor() {}
+
+    /**
+     * Run a task on a new virtual thread.
+     *
+     * @param task the task
+     */
+    public static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Run a task on a new virtual thread.
+     *
+     * @param task the task
+     * @param <T> the result type
+     * @return a future completed with the task's result, or exceptionally with what it threw
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> complete(future, task));
+        return future;
+    }
+
+    /**
+     * Run a task on a new virtual thread while holding the repository's lock.
+     *
+     * @param repo the repository the task writes to
+     * @param task the task
+     * @param <T> the result type
+     * @return a future completed with the task's result, or exceptionally with what it threw
+     */
+    public static <T> CompletableFuture<T> submitExclusive(File repo, Callable<T> task) {
+        return submit(() -> callExclusive(repo, task));
+    }
+
+    /**
+     * Run a task on the calling thread while holding the repository's lock,
+     * waiting for any other exclusive task on it to finish first.
+     *
+     * @param repo the repository the task writes to
+     * @param task the task
+     * @param <T> the result type
+     * @return the task's result
+     * @throws Exception whatever the task threw
+     */
+    public static <T> T callExclusive(File repo, Callable<T> task) throws Exception {
+        String key;
+        try {
+            key = RepositoryPool.key(repo);
+        } catch (IOException e) {
+            // not resolvable, so not openable through the pool either
+            key = repo.getAbsolutePath();
+        }
+        ReentrantLock lock = LOCKS.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            return task.call();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Callable<T> task) {
+        try {
+            future.complete(task.call());
+        } catch (Throwable e) {
+            // errors too, or the caller would wait forever
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A group of subtasks that is joined as a whole.
+     *
+     * <pre>{@code
+     * try (RepositoryExecutor.Scope scope = new RepositoryExecutor.Scope()) {
+     *     Future<long[]> a = scope.fork(() -> count(first, scope::isFailed));
+     *     Future<long[]> b = scope.fork(() -> count(second, scope::isFailed));
+     *     scope.join();
+     *     return sum(a.resultNow(), b.resultNow());
+     * }
+     * }</pre>
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ExecutorService threads = Executors.newThreadPerTaskExecutor(THREADS);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /**
+         * Start a subtask on a new virtual thread.
+         *
+         * @param task the subtask
+         * @param <T> the result type
+         * @return the subtask's future; its result is available after {@link #join()}
+         */
+        public <T> Future<T> fork(Callable<T> task) {
+            return threads.submit(() -> {
+                try {
+                    return task.call();
+                } catch (Exception | Error e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+            });
+        }
+
+        /** @return whether a subtask failed; long-running subtasks poll this to stop early */
+        public boolean isFailed() {
+            return failure.get() != null;
+        }
+
+        /**
+         * Wait for every subtask to finish.
+         *
+         * @throws ExecutionException wrapping the first subtask failure, an {@link Error} included
+         * @throws InterruptedException if the waiting thread was interrupted
+         */
+        public void join() throws ExecutionException, InterruptedException {
+            threads.shutdown();
+            while (!threads.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting; subtasks stop on their own once they see a failure
+            }
+            Throwable e = failure.get();
+            if (e != null) {
+                throw new ExecutionException(e);
+            }
+        }
+
+        /**
+         * Wait for subtasks that are still running, for example after the
+         * owner gave up on {@link #join()} because it was interrupted.
+         */
+        @Override
+        public void close() {
+            threads.close();
+        }
+    }
+}
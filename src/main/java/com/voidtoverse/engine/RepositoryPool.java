@@ -0,0 +1,276 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.diagnostics.Metrics;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps recently used repositories open so that callers do not pay the cost of
+ * {@code Git.open} on every operation.
+ *
+ * <p>Opening a repository re-reads {@code .git/config}, {@code packed-refs} and
+ * the pack indexes. This pool hands out one shared {@link Repository} per
+ * directory instead, with its object database already warm. Every handle
+ * returned by {@link #open(File)} carries its own use count, so callers close it
+ * exactly as they would close a freshly opened repository:</p>
+ *
+ * <pre>{@code
+ * try (Repository repository = RepositoryPool.open(dir); Git git = Git.wrap(repository)) {
+ *     ...
+ * }
+ * }</pre>
+ *
+ * <p>The underlying repository is only really closed once it has been evicted
+ * from the pool and every borrower has released it. Entries are evicted when
+ * more than {@link #MAX_ENTRIES} repositories, plus any entries reserved with
+ * {@link #setReservedEntries(int)}, are pooled (least recently used first),
+ * when they have been idle for longer than {@link #IDLE_TTL_MILLIS}, and when
+ * {@code .git/config} or {@code packed-refs} changed on disk since the
+ * repository was opened.</p>
+ */
+public final class RepositoryPool {
+    /** Maximum number of repositories kept open at the same time. */
+    private static final int MAX_ENTRIES = 8;
+
+    /** Idle time after which a pooled repository is closed. */
+    private static final long IDLE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /** A pooled repository together with the file stamps it was opened against. */
+    private static final class Entry {
+        final Repository repository;
+        final long configStamp;
+        final long packedRefsStamp;
+        long lastUsed;
+
+        Entry(Repository repository) {
+            this.repository = repository;
+            this.configStamp = stamp(new File(repository.getDirectory(), "config"));
+            this.packedRefsStamp = stamp(new File(repository.getDirectory(), "packed-refs"));
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        boolean isStale() {
+            return configStamp != stamp(new File(repository.getDirectory(), "config"))
+                    || packedRefsStamp != stamp(new File(repository.getDirectory(), "packed-refs"));
+        }
+    }
+
+    // access-ordered so that iteration starts at the least recently used entry; guarded by LOCK
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+
+    // not a monitor: opening a repository reads files while holding it, which would pin a virtual thread
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    private static ScheduledExecutorService sweeper;
+
+    // extra entries on top of MAX_ENTRIES for callers that cycle through many repositories; guarded by LOCK
+    private static int reservedEntries;
+
+    private RepositoryPool() {}
+
+    /**
+     * Borrow the repository located at (or directly above {@code .git} in) the given directory.
+     *
+     * <p>The returned handle must be closed by the caller; closing it only releases
+     * the borrow and keeps the repository warm in the pool.</p>
+     *
+     * @param dir the working tree or {@code .git} directory of the repository
+     * @return an open repository whose use count has been incremented for the caller
+     * @throws IOException if the directory is not a Git repository or cannot be opened
+     */
+    public static Repository open(File dir) throws IOException {
+        long start = System.nanoTime();
+        String key = key(dir);
+        List<Repository> released = new ArrayList<>();
+        Repository repository;
+        LOCK.lock();
+        try {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null && entry.isStale()) {
+                // config or packed-refs changed underneath us; reopen from scratch
+                ENTRIES.remove(key);
+                released.add(entry.repository);
+                entry = null;
+            }
+            if (entry == null) {
+                Metrics.REPO_POOL_MISSES.incrementAndGet();
+                entry = new Entry(RepositoryCache.FileKey.lenient(dir, FS.DETECTED).open(true));
+                ENTRIES.put(key, entry);
+                startSweeper();
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            entry.repository.incrementOpen();
+            repository = entry.repository;
+            collectEvictions(released);
+        } finally {
+            LOCK.unlock();
+        }
+        closeAll(released);
+        Metrics.REPO_OPEN.recordSince(start);
+        return repository;
+    }
+
+    /**
+     * Check that a directory holds a repository with a working tree, so that
+     * its staged changes can be scored. The engine reads an unopenable
+     * repository as one with nothing staged, which would score it as perfect,
+     * so callers that report to a user or gate a commit check first. The
+     * repository stays warm in the pool for the engine.
+     *
+     * @param dir the working tree or {@code .git} directory of the repository
+     * @throws IOException if the directory is not a Git repository, cannot be opened or is bare
+     */
+    public static void requireWorkTree(File dir) throws IOException {
+        try (Repository repository = open(dir)) {
+            if (repository.isBare()) {
+                throw new IOException("Bare repository has no working tree: " + dir);
+            }
+        }
+    }
+
+    /**
+     * The identity of a repository directory: its canonical path, so that
+     * symbolic links and different spellings of one repository agree, with a
+     * trailing {@code .git} dropped so that the working tree and its
+     * {@code .git} directory agree too.
+     *
+     * @param dir the working tree or {@code .git} directory of a repository
+     * @return the key the pool and {@link RepositoryExecutor}'s locks use for it
+     * @throws IOException if the canonical path cannot be determined
+     */
+    static String key(File dir) throws IOException {
+        File canonical = dir.getCanonicalFile();
+        if (".git".equals(canonical.getName()) && canonical.getParentFile() != null) {
+            canonical = canonical.getParentFile();
+        }
+        return canonical.getPath();
+    }
+
+    /**
+     * Drop the pooled repository for a directory, if any. Borrowers that still
+     * hold it keep a usable handle until they close it.
+     *
+     * @param dir the repository directory previously passed to {@link #open(File)}
+     */
+    public static void invalidate(File dir) {
+        Entry entry;
+        try {
+            LOCK.lock();
+            try {
+                entry = ENTRIES.remove(key(dir));
+            } finally {
+                LOCK.unlock();
+            }
+        } catch (IOException e) {
+            return;
+        }
+        if (entry != null) {
+            entry.repository.close();
+        }
+    }
+
+    /**
+     * Keep room for more repositories than {@link #MAX_ENTRIES}. A caller that
+     * periodically visits many repositories, such as the project dashboard,
+     * reserves one entry per repository so that its rounds neither thrash the
+     * pool nor evict the repository open in the main window. Shrinking the
+     * reservation lets the surplus be evicted on the next sweep.
+     *
+     * @param entries the number of additional entries to keep, {@code 0} to drop the reservation
+     */
+    public static void setReservedEntries(int entries) {
+        LOCK.lock();
+        try {
+            reservedEntries = Math.max(0, entries);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Release every pooled repository. Intended for application shutdown.
+     */
+    public static void clear() {
+        List<Repository> released = new ArrayList<>();
+        LOCK.lock();
+        try {
+            for (Entry entry : ENTRIES.values()) {
+                released.add(entry.repository);
+            }
+            ENTRIES.clear();
+            if (sweeper != null) {
+                sweeper.shutdownNow();
+                sweeper = null;
+            }
+        } finally {
+            LOCK.unlock();
+        }
+        closeAll(released);
+    }
+
+    /**
+     * Move entries beyond the size limit or past their idle time into {@code released}.
+     * Must be called while holding {@code LOCK}.
+     */
+    private static void collectEvictions(List<Repository> released) {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = ENTRIES.values().iterator();
+        int remaining = ENTRIES.size();
+        int capacity = MAX_ENTRIES + reservedEntries;
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (remaining > capacity || now - entry.lastUsed > IDLE_TTL_MILLIS) {
+                it.remove();
+                released.add(entry.repository);
+            }
+            remaining--;
+        }
+    }
+
+    /** Start the daemon that closes idle repositories even when nobody borrows one. */
+    private static void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "repository-pool-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            List<Repository> released = new ArrayList<>();
+            LOCK.lock();
+            try {
+                collectEvictions(released);
+            } finally {
+                LOCK.unlock();
+            }
+            closeAll(released);
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private static void closeAll(List<Repository> repositories) {
+        for (Repository repository : repositories) {
+            // drops the pool's own reference; borrowers keep theirs
+            repository.close();
+        }
+    }
+
+    /** Cheap change detector for a file: modification time mixed with its length. */
+    private static long stamp(File file) {
+        return file.lastModified() * 31 + file.length();
+    }
+}
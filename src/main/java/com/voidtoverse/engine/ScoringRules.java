@@ -0,0 +1,322 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.persistence.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-project scoring rules read from {@code .gitgui_config.json} in the
+ * working tree.
+ *
+ * <pre>
+ * {
+ *   "scoringPreferences": { "lineWeight": 1, "fileWeight": 5 },
+ *   "scoring": {
+ *     "filePenalty": 5,
+ *     "maxLinesPerFile": 400,
+ *     "weights": [
+ *       { "glob": "*.lock", "weight": 0 },
+ *       { "glob": "src/generated/**", "weight": 0 },
+ *       { "glob": "src/test/**", "weight": 0.5, "maxLines": 200 }
+ *     ],
+ *     "exemptPrefixes": ["refactor:"],
+ *     "exemptKeywords": ["bulk rename", "initial commit"],
+ *     "detectRenames": true,
+ *     "renameLimit": 400,
+ *     "renameBudgetMillis": 500
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>A file contributes {@code weight * (filePenalty + lineWeight *
+ * min(insertions + deletions, maxLines))} to the raw score. {@code lineWeight}
+ * and the file penalty come from the {@code scoringPreferences} section the
+ * configuration file has always carried, {@code fileWeight} being the
+ * penalty; {@code scoring.filePenalty}, when present, takes precedence over
+ * {@code fileWeight}. Both may be fractional. The first glob matching a file's
+ * path decides its weight and cap; files no glob matches use weight 1 and
+ * {@code maxLinesPerFile} (0 means uncapped). Globs follow gitignore
+ * conventions: {@code *} and {@code ?} stay within one path segment,
+ * {@code **} spans directories, and a glob without a slash is matched against
+ * the file name only. Commit messages starting with an exempt prefix or
+ * containing an exempt keyword (both case-insensitive) score a perfect 100.
+ * Moved and copied files are scored as renames and copies (see
+ * {@link StagedRenames}); {@code renameLimit} and {@code renameBudgetMillis}
+ * bound the content comparison, and {@code 0} for either limits detection to
+ * files whose content is unchanged.
+ * Omitted settings keep the specification's defaults, so a project without the
+ * file is scored by the specification's formula, with renames detected at the
+ * default limits.</p>
+ *
+ * <p>Rules are compiled once per version of the file: globs become char arrays
+ * walked by a backtracking matcher and weights become fixed-point integers, so
+ * {@link #fileScoreMillis} neither allocates nor re-parses anything. That
+ * keeps rule evaluation negligible next to diffing even with thousands of
+ * staged files. Only staged changes are scored with project rules; the history
+ * views keep the specification's formula so that {@code ScoreCache} entries
+ * stay valid across repositories.</p>
+ */
+public final class ScoringRules {
+    /** Name of the per-project configuration file. */
+    public static final String CONFIG_FILE = ".gitgui_config.json";
+
+    /** The specification's rules: five points per file plus one per changed line. */
+    public static final ScoringRules DEFAULT = new ScoringRules(5_000, 1_000, 0, new Rule[0],
+            new String[] {"refactor:"}, new String[] {"bulk rename", "initial commit"}, true, 400, 500);
+
+    // compiled rules per working tree, replaced when the configuration file changes
+    private static final Map<String, Cached> CACHE = new ConcurrentHashMap<>();
+
+    private record Cached(long stamp, ScoringRules rules) {
+    }
+
+    /** One compiled glob with its weight in thousandths and line cap (0 = uncapped). */
+    private record Rule(char[] glob, boolean nameOnly, int weightMillis, int maxLines) {
+    }
+
+    // both in thousandths of a point
+    private final int filePenaltyMillis;
+    private final int lineWeightMillis;
+    private final int maxLinesPerFile;
+    private final Rule[] rules;
+    private final String[] exemptPrefixes;
+    private final String[] exemptKeywords;
+    private final boolean detectRenames;
+    private final int renameLimit;
+    private final int renameBudgetMillis;
+
+    private ScoringRules(int filePenaltyMillis, int lineWeightMillis, int maxLinesPerFile, Rule[] rules,
+                         String[] exemptPrefixes,
+                         String[] exemptKeywords, boolean detectRenames, int renameLimit, int renameBudgetMillis) {
+        this.filePenaltyMillis = filePenaltyMillis;
+        this.lineWeightMillis = lineWeightMillis;
+        this.maxLinesPerFile = maxLinesPerFile;
+        this.rules = rules;
+        this.exemptPrefixes = exemptPrefixes;
+        this.exemptKeywords = exemptKeywords;
+        this.detectRenames = detectRenames;
+        this.renameLimit = renameLimit;
+        this.renameBudgetMillis = renameBudgetMillis;
+    }
+
+    /**
+     * Return the rules of a repository, compiling its configuration file on
+     * first use and again whenever the file changes. A missing or malformed
+     * file yields {@link #DEFAULT}.
+     *
+     * @param repo the working tree, may be {@code null}
+     * @return the rules to score the repository's staged changes with
+     */
+    public static ScoringRules forRepository(File repo) {
+        if (repo == null) {
+            return DEFAULT;
+        }
+        File config = new File(repo, CONFIG_FILE);
+        long stamp = config.lastModified() ^ config.length() * 31;
+        Cached cached = CACHE.get(config.getPath());
+        if (cached != null && cached.stamp() == stamp) {
+            return cached.rules();
+        }
+        ScoringRules rules = DEFAULT;
+        if (config.isFile()) {
+            try {
+                rules = parse(Files.readString(config.toPath(), StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                // unreadable or malformed configuration: keep the defaults
+            }
+        }
+        CACHE.put(config.getPath(), new Cached(stamp, rules));
+        return rules;
+    }
+
+    /**
+     * Compile rules from the text of a configuration file.
+     *
+     * @param json the configuration file's content
+     * @return the compiled rules
+     * @throws IllegalArgumentException if the text is not valid JSON
+     * @throws ClassCastException if a setting has the wrong type
+     */
+    static ScoringRules parse(String json) {
+        Object root = Json.parse(json);
+        if (!(root instanceof Map<?, ?> config)) {
+            return DEFAULT;
+        }
+        Map<?, ?> preferences = config.get("scoringPreferences") instanceof Map<?, ?> map ? map : Map.of();
+        Map<?, ?> scoring = config.get("scoring") instanceof Map<?, ?> map ? map : Map.of();
+        if (preferences.isEmpty() && scoring.isEmpty()) {
+            return DEFAULT;
+        }
+        int filePenaltyMillis = millisSetting(scoring, "filePenalty",
+                millisSetting(preferences, "fileWeight", DEFAULT.filePenaltyMillis));
+        int lineWeightMillis = millisSetting(preferences, "lineWeight", DEFAULT.lineWeightMillis);
+        int maxLines = intSetting(scoring, "maxLinesPerFile", DEFAULT.maxLinesPerFile);
+        List<Rule> rules = new ArrayList<>();
+        if (scoring.get("weights") instanceof List<?> weights) {
+            for (Object item : weights) {
+                Map<?, ?> rule = (Map<?, ?>) item;
+                String glob = (String) rule.get("glob");
+                double weight = rule.get("weight") instanceof Double d ? d : 1.0;
+                rules.add(new Rule(glob.toCharArray(), glob.indexOf('/') < 0,
+                        (int) Math.round(Math.max(0, weight) * 1000), intSetting(rule, "maxLines", maxLines)));
+            }
+        }
+        return new ScoringRules(filePenaltyMillis, lineWeightMillis, maxLines, rules.toArray(new Rule[0]),
+                stringsSetting(scoring, "exemptPrefixes", DEFAULT.exemptPrefixes),
+                stringsSetting(scoring, "exemptKeywords", DEFAULT.exemptKeywords),
+                !Boolean.FALSE.equals(scoring.get("detectRenames")),
+                intSetting(scoring, "renameLimit", DEFAULT.renameLimit),
+                intSetting(scoring, "renameBudgetMillis", DEFAULT.renameBudgetMillis));
+    }
+
+    /** @return whether added and deleted files are paired into renames and copies before scoring */
+    public boolean detectRenames() {
+        return detectRenames;
+    }
+
+    /**
+     * @return the most added or deleted files whose contents are compared to find renames; above it only
+     *         files with unchanged content are paired
+     */
+    public int renameLimit() {
+        return renameLimit;
+    }
+
+    /** @return the time the content comparison may take before renames are left undetected, in milliseconds */
+    public int renameBudgetMillis() {
+        return renameBudgetMillis;
+    }
+
+    /**
+     * Contribution of one changed file to the raw score, in thousandths of a
+     * point. Allocation free.
+     *
+     * @param path the repository-relative path of the file
+     * @param insertions lines added to the file
+     * @param deletions lines removed from the file
+     * @return the weighted contribution times 1000
+     */
+    public long fileScoreMillis(String path, int insertions, int deletions) {
+        int weightMillis = 1000;
+        int cap = maxLinesPerFile;
+        int nameStart = path.lastIndexOf('/') + 1;
+        for (Rule rule : rules) {
+            if (matches(rule.glob(), 0, path, rule.nameOnly() ? nameStart : 0)) {
+                weightMillis = rule.weightMillis();
+                cap = rule.maxLines();
+                break;
+            }
+        }
+        long lines = (long) insertions + deletions;
+        if (cap > 0 && lines > cap) {
+            lines = cap;
+        }
+        return weightMillis * (filePenaltyMillis + lineWeightMillis * lines) / 1000;
+    }
+
+    /**
+     * Round a sum of {@link #fileScoreMillis} values to a raw score.
+     *
+     * @param millis the summed contributions
+     * @return the raw score
+     */
+    public static int toScore(long millis) {
+        return (int) Math.min(Integer.MAX_VALUE, (millis + 500) / 1000);
+    }
+
+    /**
+     * Check whether a commit message is exempt from size scoring.
+     *
+     * @param message the commit message, may be {@code null}
+     * @return {@code true} if the message starts with an exempt prefix or contains an exempt keyword
+     */
+    public boolean isExempt(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lower = message.trim().toLowerCase(Locale.ROOT);
+        for (String prefix : exemptPrefixes) {
+            if (lower.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String keyword : exemptKeywords) {
+            if (lower.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Match {@code glob} from index {@code g} against {@code path} from index
+     * {@code p}. Recursion only happens at wildcards, and nothing is allocated.
+     */
+    private static boolean matches(char[] glob, int g, String path, int p) {
+        while (g < glob.length) {
+            char c = glob[g];
+            if (c == '*') {
+                if (g + 1 < glob.length && glob[g + 1] == '*') {
+                    int next = g + 2;
+                    // "**/" also matches no directory at all
+                    if (next < glob.length && glob[next] == '/' && matches(glob, next + 1, path, p)) {
+                        return true;
+                    }
+                    for (int k = p; k <= path.length(); k++) {
+                        if (matches(glob, next, path, k)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                for (int k = p; k <= path.length(); k++) {
+                    if (matches(glob, g + 1, path, k)) {
+                        return true;
+                    }
+                    if (k < path.length() && path.charAt(k) == '/') {
+                        return false;
+                    }
+                }
+                return false;
+            }
+            if (p >= path.length()) {
+                return false;
+            }
+            char actual = path.charAt(p);
+            if (c == '?' ? actual == '/' : c != actual) {
+                return false;
+            }
+            g++;
+            p++;
+        }
+        return p == path.length();
+    }
+
+    private static int intSetting(Map<?, ?> map, String key, int fallback) {
+        return map.get(key) instanceof Double d ? Math.max(0, d.intValue()) : fallback;
+    }
+
+    private static int millisSetting(Map<?, ?> map, String key, int fallback) {
+        return map.get(key) instanceof Double d ? (int) Math.round(Math.max(0, Math.min(d, 1_000_000)) * 1000)
+                : fallback;
+    }
+
+    private static String[] stringsSetting(Map<?, ?> map, String key, String[] fallback) {
+        if (!(map.get(key) instanceof List<?> list)) {
+            return fallback;
+        }
+        String[] values = new String[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((String) list.get(i)).toLowerCase(Locale.ROOT);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,176 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.engine.QualityEngine.Estimate;
+import com.voidtoverse.engine.QualityEngine.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs {@link QualityEngine} computations on a dedicated background thread.
+ *
+ * <p>Requests are coalesced per repository: a request made while another one
+ * for the same repository is still waiting to start is merged into it, so a
+ * burst of triggers (typing, file saves, repeated clicks) produces a single
+ * computation and every caller receives the same future. A request made while
+ * a computation for the same repository is already running marks that
+ * computation as stale; it stops at the next file boundary and its future is
+ * cancelled. Requests for other repositories never cancel each other: the
+ * dashboard, the staging panel and the banner share this service, and each
+ * repository's request simply queues behind the running one.</p>
+ *
+ * <p>The service has no JavaFX dependency, so headless callers can simply
+ * {@code join()} the returned future, while the UI publishes the result
+ * through {@code Platform.runLater}.</p>
+ */
+public final class ScoringService {
+    /** A scheduled or running computation together with the future handed to callers. */
+    private static final class Request {
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        final File repo;
+        final String key;
+        volatile boolean stale;
+
+        Request(File repo) {
+            this.repo = repo;
+            this.key = keyOf(repo);
+        }
+    }
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quality-scoring");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Object LOCK = new Object();
+
+    // guarded by LOCK; pending requests are keyed like RepositoryPool
+    private static final Map<String, Request> PENDING = new HashMap<>();
+    private static Request running;
+    private static long coalesceDelayMillis = 75;
+
+    private ScoringService() {}
+
+    /**
+     * Request a quality computation for the staged changes of a repository.
+     *
+     * @param repo the repository directory
+     * @return a future completed with the result, or cancelled if a newer request for the same
+     *         repository superseded it
+     */
+    public static CompletableFuture<Result> submit(File repo) {
+        synchronized (LOCK) {
+            Request request = new Request(repo);
+            if (running != null && running.key.equals(request.key)) {
+                // whatever is running now describes an older state of this index
+                running.stale = true;
+                running.future.cancel(false);
+            }
+            Request pending = PENDING.get(request.key);
+            if (pending != null) {
+                // still waiting to start: fold this trigger into it
+                return pending.future;
+            }
+            PENDING.put(request.key, request);
+            EXECUTOR.schedule(() -> run(request), coalesceDelayMillis, TimeUnit.MILLISECONDS);
+            return request.future;
+        }
+    }
+
+    /**
+     * Request a cheap line-count estimate of the staged changes.
+     *
+     * <p>The estimate runs on the same thread as full computations, so it never
+     * competes with them for the repository, but it is not coalesced and starts
+     * as soon as the thread is free. Callers typically show it immediately and
+     * only {@link #submit(File)} an exact computation when
+     * {@link Estimate#isConclusive()} is {@code false}.</p>
+     *
+     * @param repo the repository directory
+     * @return a future completed with bounds on the raw score
+     */
+    public static CompletableFuture<Estimate> estimate(File repo) {
+        return CompletableFuture.supplyAsync(() -> QualityEngine.estimateQuality(repo, () -> false), EXECUTOR);
+    }
+
+    /**
+     * Score the staged changes while reporting every file's result.
+     *
+     * <p>Like {@link #estimate(File)} this runs on the scoring thread without
+     * coalescing. Rows are appended to {@code breakdown} as files are diffed, so
+     * the caller can display them before the future completes.</p>
+     *
+     * @param repo the repository directory
+     * @param breakdown receives one row per staged file
+     * @param cancelled polled between files; returning {@code true} abandons the run
+     * @return a future completed with the result, or exceptionally with a
+     *         {@link CancellationException} when abandoned
+     */
+    public static CompletableFuture<Result> breakdown(File repo, FileBreakdown breakdown, BooleanSupplier cancelled) {
+        return CompletableFuture.supplyAsync(() -> QualityEngine.calculateQuality(repo, cancelled, breakdown),
+                EXECUTOR);
+    }
+
+    /**
+     * Load the JGit classes used for scoring on the scoring thread.
+     *
+     * <p>Called once the main window is visible when no repository is open yet,
+     * so the first score after picking one does not include class loading.
+     * Scoring a repository has the same effect, so there is no need to call this
+     * when a computation is about to be requested anyway.</p>
+     *
+     * @return a future completed once the classes are loaded
+     */
+    public static CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(QualityEngine::warmUp, EXECUTOR);
+    }
+
+    /**
+     * Change how long a request waits for further triggers before it starts computing.
+     *
+     * @param millis the coalescing window in milliseconds; {@code 0} starts immediately
+     */
+    public static void setCoalesceDelay(long millis) {
+        synchronized (LOCK) {
+            coalesceDelayMillis = Math.max(0, millis);
+        }
+    }
+
+    private static String keyOf(File repo) {
+        try {
+            return RepositoryPool.key(repo);
+        } catch (IOException e) {
+            return repo.getAbsolutePath();
+        }
+    }
+
+    private static void run(Request request) {
+        synchronized (LOCK) {
+            PENDING.remove(request.key, request);
+            running = request;
+        }
+        try {
+            Result result = QualityEngine.calculateQuality(request.repo, () -> request.stale);
+            request.future.complete(result);
+        } catch (CancellationException e) {
+            request.future.cancel(false);
+        } catch (RuntimeException e) {
+            request.future.completeExceptionally(e);
+        } finally {
+            synchronized (LOCK) {
+                if (running == request) {
+                    running = null;
+                }
+            }
+        }
+    }
+}
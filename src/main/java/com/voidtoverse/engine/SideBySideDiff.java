@@ -0,0 +1,266 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A staged file laid out for side-by-side display.
+ *
+ * <p>Both sides are read as {@link MappedBlob}s, so only line offsets and one
+ * hash per line live on the heap and large files are memory-mapped. The edit
+ * list is computed the way the scoring engine counts the file: by a formatter
+ * from {@link QualityEngine#newFormatter()} bound to the repository's diff
+ * configuration, so the hunks shown are the edits that were scored. Text files
+ * above the engine's large file threshold, which the formatter will not load,
+ * are diffed over the mapped lines with the histogram algorithm the engine
+ * streams them with; there, equal hashes are confirmed against the line bytes,
+ * so two different lines are never shown as the same.</p>
+ *
+ * <p>The edit list is expanded into rows: unchanged lines pair up, and each
+ * edit takes as many rows as its longer side, pairing old and new lines in
+ * order. Row data is stored in primitive arrays; line text is decoded only for
+ * the rows a view asks for. Close the diff to release the mapped blobs.</p>
+ */
+public final class SideBySideDiff implements AutoCloseable {
+    /** How a row differs between the two sides. */
+    public enum Kind {
+        /** The same line on both sides. */
+        SAME,
+        /** A line replaced by another. */
+        CHANGED,
+        /** A line only on the old side. */
+        REMOVED,
+        /** A line only on the new side. */
+        ADDED
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final String path;
+    private final MappedBlob left;
+    private final MappedBlob right;
+    private final EditList edits;
+    private final int[] leftLines;
+    private final int[] rightLines;
+    private final byte[] kinds;
+
+    private SideBySideDiff(String path, MappedBlob left, MappedBlob right, EditList edits) {
+        this.path = path;
+        this.left = left;
+        this.right = right;
+        this.edits = edits;
+        int rows = left.lineCount();
+        for (Edit edit : edits) {
+            rows += Math.max(0, edit.getLengthB() - edit.getLengthA());
+        }
+        leftLines = new int[rows];
+        rightLines = new int[rows];
+        kinds = new byte[rows];
+        int row = 0;
+        int a = 0;
+        int b = 0;
+        for (Edit edit : edits) {
+            row = same(row, a, b, edit.getBeginA() - a);
+            int lengthA = edit.getLengthA();
+            int lengthB = edit.getLengthB();
+            for (int k = 0; k < Math.max(lengthA, lengthB); k++, row++) {
+                leftLines[row] = k < lengthA ? edit.getBeginA() + k : -1;
+                rightLines[row] = k < lengthB ? edit.getBeginB() + k : -1;
+                Kind kind = k >= lengthA ? Kind.ADDED : k >= lengthB ? Kind.REMOVED : Kind.CHANGED;
+                kinds[row] = (byte) kind.ordinal();
+            }
+            a = edit.getEndA();
+            b = edit.getEndB();
+        }
+        same(row, a, b, left.lineCount() - a);
+    }
+
+    private int same(int row, int a, int b, int count) {
+        for (int k = 0; k < count; k++, row++) {
+            leftLines[row] = a + k;
+            rightLines[row] = b + k;
+            kinds[row] = (byte) Kind.SAME.ordinal();
+        }
+        return row;
+    }
+
+    /**
+     * Lay out the staged change of one file: HEAD on the left, the index on the right.
+     *
+     * <p>Only this file is looked up in HEAD and in the index; the staged
+     * changes are not listed again.</p>
+     *
+     * @param repo the repository directory
+     * @param oldPath the path the file has in HEAD, as reported by {@link FileBreakdown#oldPath}
+     * @param path the repository-relative path in the index, as reported by {@link FileBreakdown#path}
+     * @return the diff, to be closed when no longer displayed
+     * @throws IOException if the file is not staged or its blobs cannot be read
+     */
+    public static SideBySideDiff ofStaged(File repo, String oldPath, String path) throws IOException {
+        try (Repository repository = RepositoryPool.open(repo); ObjectReader reader = repository.newObjectReader();
+             DiffFormatter formatter = QualityEngine.newFormatter()) {
+            formatter.setReader(reader, repository.getConfig());
+            DiffEntry entry = StagedEntry.of(repository, reader, oldPath, path);
+            if (entry == null) {
+                throw new IOException(path + " has no staged changes");
+            }
+            MappedBlob left = MappedBlob.open(reader, entry.getOldId().toObjectId());
+            try {
+                MappedBlob right = MappedBlob.open(reader, entry.getNewId().toObjectId());
+                try {
+                    return new SideBySideDiff(path, left, right, edits(formatter, entry, left, right));
+                } catch (IOException | RuntimeException e) {
+                    right.close();
+                    throw e;
+                }
+            } catch (IOException | RuntimeException e) {
+                left.close();
+                throw e;
+            }
+        }
+    }
+
+    /** @return the edits the engine counts for the entry */
+    private static EditList edits(DiffFormatter formatter, DiffEntry entry, MappedBlob left, MappedBlob right)
+            throws IOException {
+        if (left.isBinary() || right.isBinary()) {
+            return new EditList();
+        }
+        try {
+            FileHeader header = formatter.toFileHeader(entry);
+            if (header.getPatchType() != FileHeader.PatchType.BINARY) {
+                return header.toEditList();
+            }
+        } catch (LargeObjectException e) {
+            // too big for the formatter, like a file above its threshold
+        }
+        // the engine streams such files through StreamedBlobs with the same algorithm
+        return DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                .diff(MappedBlob.LINES, left, right);
+    }
+
+    /** @return the repository-relative path */
+    public String path() {
+        return path;
+    }
+
+    /** @return whether either side is binary, in which case there are no rows */
+    public boolean isBinary() {
+        return left.isBinary() || right.isBinary();
+    }
+
+    /** @return the edits between the two sides */
+    public EditList edits() {
+        return edits;
+    }
+
+    /** @return the number of display rows */
+    public int rowCount() {
+        return kinds.length;
+    }
+
+    /** @return how row {@code row} differs */
+    public Kind kind(int row) {
+        return KINDS[kinds[row]];
+    }
+
+    /** @return the zero-based old line shown in row {@code row}, or {@code -1} if none */
+    public int leftLine(int row) {
+        return leftLines[row];
+    }
+
+    /** @return the zero-based new line shown in row {@code row}, or {@code -1} if none */
+    public int rightLine(int row) {
+        return rightLines[row];
+    }
+
+    /** @return the old text of row {@code row}, or {@code null} if the row has no old line */
+    public String leftText(int row) {
+        return leftLines[row] < 0 ? null : left.line(leftLines[row]);
+    }
+
+    /** @return the new text of row {@code row}, or {@code null} if the row has no new line */
+    public String rightText(int row) {
+        return rightLines[row] < 0 ? null : right.line(rightLines[row]);
+    }
+
+    /**
+     * Find the first row of the next hunk.
+     *
+     * @param row the row to search after
+     * @return the first changed row after {@code row} that starts a hunk, or {@code -1} if none
+     */
+    public int nextHunk(int row) {
+        for (int i = row + 1; i < kinds.length; i++) {
+            if (kinds[i] != Kind.SAME.ordinal() && (i == 0 || kinds[i - 1] == Kind.SAME.ordinal())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Release both blobs.
+     */
+    @Override
+    public void close() {
+        left.close();
+        right.close();
+    }
+
+    /** One file's staged change, read from HEAD and the index without listing the others. */
+    private static final class StagedEntry extends DiffEntry {
+        private static final AbbreviatedObjectId ZERO = AbbreviatedObjectId.fromObjectId(ObjectId.zeroId());
+
+        /** @return the entry, or {@code null} if the file is the same in HEAD and the index */
+        static StagedEntry of(Repository repository, ObjectReader reader, String oldPath, String path)
+                throws IOException {
+            StagedEntry entry = new StagedEntry();
+            entry.oldMode = FileMode.MISSING;
+            entry.oldId = ZERO;
+            entry.newMode = FileMode.MISSING;
+            entry.newId = ZERO;
+            ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+            if (head != null) {
+                try (TreeWalk walk = TreeWalk.forPath(reader, oldPath, head)) {
+                    if (walk != null) {
+                        entry.oldMode = walk.getFileMode(0);
+                        entry.oldId = AbbreviatedObjectId.fromObjectId(walk.getObjectId(0));
+                    }
+                }
+            }
+            DirCacheEntry staged = repository.readDirCache().getEntry(path);
+            if (staged != null) {
+                entry.newMode = staged.getFileMode();
+                entry.newId = AbbreviatedObjectId.fromObjectId(staged.getObjectId());
+            }
+            boolean added = entry.oldMode == FileMode.MISSING;
+            boolean deleted = entry.newMode == FileMode.MISSING;
+            if (added && deleted || oldPath.equals(path) && entry.oldMode == entry.newMode
+                    && entry.oldId.equals(entry.newId)) {
+                return null;
+            }
+            entry.oldPath = added ? DEV_NULL : oldPath;
+            entry.newPath = deleted ? DEV_NULL : path;
+            entry.changeType = added ? ChangeType.ADD : deleted ? ChangeType.DELETE
+                    : oldPath.equals(path) ? ChangeType.MODIFY : ChangeType.RENAME;
+            return entry;
+        }
+    }
+}
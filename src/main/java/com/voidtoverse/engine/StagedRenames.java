@@ -0,0 +1,228 @@
+package com.voidtoverse.engine;
+
+import com.voidtoverse.diagnostics.Metrics;
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pairs the added and deleted files of a staged change into renames and copies.
+ *
+ * <p>The index diff lists a moved file as one deletion and one addition, which
+ * scores every line twice. Pairing happens in two steps. Files whose content
+ * did not change are matched first, by looking up each added blob id among the
+ * deleted ones: one hash lookup per file, no blob is read, and a blob added
+ * several times yields a rename and copies. Only the files left over go to
+ * JGit's {@link RenameDetector}, which compares their contents. That
+ * comparison is quadratic, so it is skipped when more files were added or
+ * deleted than the rules' {@link ScoringRules#renameLimit() rename limit}, and
+ * abandoned when it runs longer than their
+ * {@link ScoringRules#renameBudgetMillis() time budget}. In both cases the
+ * unchanged-content renames stand, the remaining files are scored as plain
+ * additions and deletions, and {@link Changes#unpaired()} reports how many
+ * files that left unexamined, so the fallback shows instead of silently
+ * inflating the score.</p>
+ */
+final class StagedRenames {
+    private static final Comparator<DiffEntry> BY_PATH = Comparator.comparing(QualityEngine::path);
+
+    private StagedRenames() {}
+
+    /**
+     * The staged entries after pairing.
+     *
+     * @param entries modifications, renames, copies and the additions and deletions left unpaired, by path
+     * @param unpaired the number of added and deleted files whose contents were not compared because the
+     *                 rename limit or time budget was exceeded; {@code 0} when detection covered every file
+     */
+    record Changes(List<DiffEntry> entries, int unpaired) {
+    }
+
+    /**
+     * Pair the added and deleted files of a staged change.
+     *
+     * @param repository the repository the entries were listed from
+     * @param reader the reader to compare contents through
+     * @param staged the staged entries, without renames
+     * @param rules the rules deciding whether and how far renames are detected
+     * @param cancelled polled while contents are compared
+     * @return the paired entries
+     * @throws IOException if a blob cannot be read
+     * @throws CancellationException if {@code cancelled} reported {@code true}
+     */
+    static Changes detect(Repository repository, ObjectReader reader, List<DiffEntry> staged, ScoringRules rules,
+                          BooleanSupplier cancelled) throws IOException {
+        if (!rules.detectRenames()) {
+            return new Changes(staged, 0);
+        }
+        List<DiffEntry> entries = new ArrayList<>(staged.size());
+        List<DiffEntry> unmatched = new ArrayList<>();
+        pairUnchanged(repository, reader, staged, entries, unmatched);
+        int unpaired = 0;
+        if (mayCompareContents(unmatched, rules)) {
+            if (isOverLimit(unmatched, rules)) {
+                unpaired = unmatched.size();
+            } else {
+                RenameDetector detector = new RenameDetector(reader, repository.getConfig().get(DiffConfig.KEY));
+                detector.setRenameLimit(rules.renameLimit());
+                detector.addAll(unmatched);
+                try {
+                    unmatched = detector.compute(reader, new Budget(rules.renameBudgetMillis(), cancelled));
+                    if (detector.isOverRenameLimit()) {
+                        unpaired = count(unmatched, ChangeType.ADD) + count(unmatched, ChangeType.DELETE);
+                    }
+                } catch (CanceledException e) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Superseded by a newer quality request");
+                    }
+                    // out of time: keep the files as they were listed
+                    unpaired = unmatched.size();
+                }
+            }
+            if (unpaired > 0) {
+                Metrics.RENAME_FALLBACKS.incrementAndGet();
+            }
+        }
+        entries.addAll(unmatched);
+        entries.sort(BY_PATH);
+        return new Changes(entries, unpaired);
+    }
+
+    /**
+     * Pair only the added and deleted files whose content is unchanged, which
+     * reads no blob. Used by estimates, which must not diff.
+     *
+     * @param repository the repository the entries were listed from
+     * @param reader a reader on the repository
+     * @param staged the staged entries, without renames
+     * @param rules the rules deciding whether renames are detected
+     * @return the entries with unchanged-content renames and copies paired
+     * @throws IOException if the entries cannot be paired
+     */
+    static List<DiffEntry> pairUnchanged(Repository repository, ObjectReader reader, List<DiffEntry> staged,
+                                         ScoringRules rules) throws IOException {
+        if (!rules.detectRenames()) {
+            return staged;
+        }
+        List<DiffEntry> entries = new ArrayList<>(staged.size());
+        List<DiffEntry> unmatched = new ArrayList<>();
+        pairUnchanged(repository, reader, staged, entries, unmatched);
+        entries.addAll(unmatched);
+        return entries;
+    }
+
+    /**
+     * @param entries additions and deletions that are not paired yet
+     * @param rules the rules in force
+     * @return whether comparing contents could pair any of them
+     */
+    static boolean mayCompareContents(List<DiffEntry> entries, ScoringRules rules) {
+        return rules.detectRenames() && rules.renameLimit() > 0 && rules.renameBudgetMillis() > 0
+                && count(entries, ChangeType.ADD) > 0 && count(entries, ChangeType.DELETE) > 0;
+    }
+
+    /**
+     * @param entries additions and deletions that are not paired yet
+     * @param rules the rules in force
+     * @return whether more files were added or deleted than the rename limit allows to compare
+     */
+    static boolean isOverLimit(List<DiffEntry> entries, ScoringRules rules) {
+        return Math.max(count(entries, ChangeType.ADD), count(entries, ChangeType.DELETE)) > rules.renameLimit();
+    }
+
+    /**
+     * Split {@code staged} into entries that need no content comparison (modifications and
+     * unchanged-content renames and copies) and additions and deletions that are still unmatched.
+     */
+    private static void pairUnchanged(Repository repository, ObjectReader reader, List<DiffEntry> staged,
+                                      List<DiffEntry> entries, List<DiffEntry> unmatched) throws IOException {
+        Map<ObjectId, DiffEntry> deleted = new HashMap<>();
+        for (DiffEntry diff : staged) {
+            if (diff.getChangeType() == ChangeType.DELETE) {
+                if (!diff.getOldId().isComplete() || deleted.putIfAbsent(diff.getOldId().toObjectId(), diff) != null) {
+                    // one source per blob; a second deletion of the same content may still pair by content
+                    unmatched.add(diff);
+                }
+            } else if (diff.getChangeType() != ChangeType.ADD) {
+                entries.add(diff);
+            }
+        }
+        List<DiffEntry> exact = new ArrayList<>();
+        Set<ObjectId> sources = new HashSet<>();
+        for (DiffEntry diff : staged) {
+            if (diff.getChangeType() != ChangeType.ADD) {
+                continue;
+            }
+            DiffEntry source = diff.getNewId().isComplete() ? deleted.get(diff.getNewId().toObjectId()) : null;
+            if (source != null && sameType(source.getOldMode(), diff.getNewMode())) {
+                exact.add(diff);
+                sources.add(source.getOldId().toObjectId());
+            } else {
+                unmatched.add(diff);
+            }
+        }
+        for (Map.Entry<ObjectId, DiffEntry> source : deleted.entrySet()) {
+            (sources.contains(source.getKey()) ? exact : unmatched).add(source.getValue());
+        }
+        if (!exact.isEmpty()) {
+            // every entry has its twin, so the detector only runs its id matching and reads nothing
+            RenameDetector detector = new RenameDetector(reader, repository.getConfig().get(DiffConfig.KEY));
+            detector.addAll(exact);
+            try {
+                entries.addAll(detector.compute(reader, NullProgressMonitor.INSTANCE));
+            } catch (CanceledException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /** Renames keep the kind of file: a regular file does not become a symbolic link. */
+    private static boolean sameType(FileMode a, FileMode b) {
+        return (a.getBits() & FileMode.TYPE_MASK) == (b.getBits() & FileMode.TYPE_MASK);
+    }
+
+    private static int count(List<DiffEntry> entries, ChangeType type) {
+        int n = 0;
+        for (DiffEntry diff : entries) {
+            if (diff.getChangeType() == type) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Cancels the content comparison once its time is up or the caller gives up. */
+    private static final class Budget extends EmptyProgressMonitor {
+        private final long deadline;
+        private final BooleanSupplier cancelled;
+
+        Budget(int millis, BooleanSupplier cancelled) {
+            this.deadline = System.nanoTime() + millis * 1_000_000L;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return System.nanoTime() - deadline > 0 || cancelled.getAsBoolean();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last staged diff statistics of each repository together with
+ * the state they were computed from.
+ *
+ * <p>The staged change is a function of the index, the commit HEAD points at
+ * and the scoring rules. The working tree watcher fires for every saved file,
+ * but most of those saves leave the index alone, so {@link QualityEngine}
+ * compares a cheap {@link Stamp} (the index file's size and modification time,
+ * the HEAD commit id and the rules in force) with the one of the previous run
+ * and reuses its statistics when nothing changed, without listing or diffing
+ * the staged files again.</p>
+ *
+ * <p>Like git's own racy-clean check, a stamp taken while the index was
+ * written less than {@link #RACY_MILLIS} ago is never reused: a second write
+ * within the file system's timestamp granularity could leave size and time
+ * unchanged.</p>
+ */
+final class StagedSnapshot {
+    /** Coarsest modification time granularity of the file systems we care about (FAT). */
+    static final long RACY_MILLIS = 2_000;
+
+    /**
+     * What a staged diff depends on.
+     *
+     * @param indexModified the index file's modification time in milliseconds
+     * @param indexLength the index file's size in bytes
+     * @param head the commit HEAD resolves to, or {@code null} on an unborn branch
+     * @param rules the rules the diff was scored with
+     * @param racy whether the index was written too recently for the stamp to be trusted
+     */
+    record Stamp(long indexModified, long indexLength, ObjectId head, ScoringRules rules, boolean racy) {
+        boolean matches(Stamp other) {
+            return other != null && !racy && !other.racy && indexModified == other.indexModified
+                    && indexLength == other.indexLength && Objects.equals(head, other.head) && rules == other.rules;
+        }
+    }
+
+    private record Entry(Stamp stamp, long[] stats) {
+    }
+
+    private static final Map<String, Entry> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private StagedSnapshot() {}
+
+    /**
+     * Take the stamp of a repository's current staged state.
+     *
+     * @param repository the open repository
+     * @param rules the rules the staged files will be scored with
+     * @return the stamp
+     * @throws IOException if HEAD cannot be read
+     */
+    static Stamp stamp(Repository repository, ScoringRules rules) throws IOException {
+        File index = repository.getIndexFile();
+        long modified = index.lastModified();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        boolean racy = System.currentTimeMillis() - modified < RACY_MILLIS;
+        return new Stamp(modified, index.length(), head == null ? null : head.copy(), rules, racy);
+    }
+
+    /**
+     * Look up the statistics computed for a stamp.
+     *
+     * @param repo the repository directory
+     * @param stamp the current stamp
+     * @return a copy of the files, insertions, deletions and score in thousandths, or {@code null} if the
+     *         staged state changed since they were computed
+     */
+    static long[] get(File repo, Stamp stamp) {
+        Entry entry = SNAPSHOTS.get(repo.getAbsolutePath());
+        return entry != null && entry.stamp().matches(stamp) ? entry.stats().clone() : null;
+    }
+
+    /**
+     * Record the statistics computed for a stamp.
+     *
+     * @param repo the repository directory
+     * @param stamp the stamp taken before the diff started
+     * @param stats the files, insertions, deletions and score in thousandths
+     */
+    static void put(File repo, Stamp stamp, long[] stats) {
+        SNAPSHOTS.put(repo.getAbsolutePath(), new Entry(stamp, stats.clone()));
+    }
+
+    /**
+     * Forget every snapshot, so the next run lists and diffs the staged files.
+     */
+    static void clear() {
+        SNAPSHOTS.clear();
+    }
+}
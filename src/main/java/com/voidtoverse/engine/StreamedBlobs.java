@@ -0,0 +1,234 @@
+package com.voidtoverse.engine;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Line statistics for blobs computed by streaming them instead of loading them
+ * onto the heap.
+ *
+ * <p>{@code DiffFormatter} materializes both sides of a file and reports a
+ * file past its binary file threshold as binary, without any edits. The helpers
+ * here read blobs through {@link ObjectReader#open} streams in fixed-size
+ * chunks, so memory stays bounded regardless of blob size: counting lines needs
+ * only the read buffer, and diffing keeps one {@code int} hash per line.
+ * Blobs that look binary (a NUL byte in the first 8000 bytes, the same
+ * heuristic as JGit's {@code RawText}) contribute no lines, matching how the
+ * formatter scores binary files.</p>
+ */
+final class StreamedBlobs {
+    /** Number of leading bytes inspected for binary detection. */
+    static final int BINARY_SNIFF_LENGTH = 8000;
+
+    /** Hash of an empty line. */
+    static final int HASH_SEED = 5381;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private StreamedBlobs() {}
+
+    /**
+     * Line hashes of a blob, used as the diff sequence for blobs too large to diff directly.
+     */
+    static final class LineHashes extends Sequence {
+        private int[] hashes = new int[1024];
+        private int size;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        int get(int line) {
+            return hashes[line];
+        }
+
+        void add(int hash) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            hashes[size++] = hash;
+        }
+    }
+
+    /** Compares lines by their hash; collisions are rare enough for scoring purposes. */
+    private static final SequenceComparator<LineHashes> BY_HASH = new SequenceComparator<>() {
+        @Override
+        public boolean equals(LineHashes a, int ai, LineHashes b, int bi) {
+            return a.hashes[ai] == b.hashes[bi];
+        }
+
+        @Override
+        public int hash(LineHashes seq, int ptr) {
+            return seq.hashes[ptr];
+        }
+    };
+
+    /**
+     * Check whether a blob looks binary, reading no more than its first
+     * {@value #BINARY_SNIFF_LENGTH} bytes.
+     *
+     * @param reader the reader to stream the blob through
+     * @param id the blob id
+     * @return {@code true} if a NUL byte occurs among the first bytes
+     * @throws IOException if the blob cannot be read
+     */
+    static boolean isBinary(ObjectReader reader, AnyObjectId id) throws IOException {
+        if (ObjectId.zeroId().equals(id)) {
+            return false;
+        }
+        byte[] buf = new byte[BINARY_SNIFF_LENGTH];
+        try (ObjectStream in = reader.open(id).openStream()) {
+            int read = 0;
+            int n;
+            while (read < buf.length && (n = in.read(buf, read, buf.length - read)) > 0) {
+                for (int i = read; i < read + n; i++) {
+                    if (buf[i] == 0) {
+                        return true;
+                    }
+                }
+                read += n;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count the lines of a blob without materializing it.
+     *
+     * @param reader the reader to stream the blob through
+     * @param id the blob id; the zero id (a missing side of an add or delete) has no lines
+     * @return the number of lines, or {@code 0} for binary content
+     * @throws IOException if the blob cannot be read
+     */
+    static int countLines(ObjectReader reader, AnyObjectId id) throws IOException {
+        if (ObjectId.zeroId().equals(id)) {
+            return 0;
+        }
+        byte[] buf = new byte[BUFFER_SIZE];
+        long read = 0;
+        int lines = 0;
+        byte last = '\n';
+        try (ObjectStream in = reader.open(id).openStream()) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = buf[i];
+                    if (b == 0 && read + i < BINARY_SNIFF_LENGTH) {
+                        return 0;
+                    }
+                    if (b == '\n') {
+                        lines++;
+                    }
+                }
+                read += n;
+                last = buf[n - 1];
+            }
+        }
+        // a trailing line without a newline still counts as a line
+        return last == '\n' ? lines : lines + 1;
+    }
+
+    /**
+     * Count insertions and deletions between two blobs by diffing line hashes.
+     *
+     * <p>Only one {@code int} per line is held in memory, so this works for blobs
+     * well beyond the size {@code DiffFormatter} is willing to load.</p>
+     *
+     * @param reader the reader to stream both blobs through
+     * @param oldId the blob on the old side (zero id for an added file)
+     * @param newId the blob on the new side (zero id for a deleted file)
+     * @return a two‑element array of insertions and deletions
+     * @throws IOException if either blob cannot be read
+     */
+    static int[] diffLines(ObjectReader reader, AnyObjectId oldId, AnyObjectId newId) throws IOException {
+        LineHashes a = hashLines(reader, oldId);
+        LineHashes b = hashLines(reader, newId);
+        if (a == null || b == null) {
+            // binary on either side: scored like DiffFormatter scores binary files
+            return new int[] {0, 0};
+        }
+        EditList edits = diff(a, b);
+        int insertions = 0;
+        int deletions = 0;
+        for (Edit edit : edits) {
+            insertions += edit.getEndB() - edit.getBeginB();
+            deletions += edit.getEndA() - edit.getBeginA();
+        }
+        return new int[] {insertions, deletions};
+    }
+
+    /**
+     * Diff two line hash sequences with the histogram algorithm, the formatter's default.
+     *
+     * @param a the old side
+     * @param b the new side
+     * @return the edits turning {@code a} into {@code b}
+     */
+    static EditList diff(LineHashes a, LineHashes b) {
+        return DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM).diff(BY_HASH, a, b);
+    }
+
+    /**
+     * Extend a djb2 line hash by one byte. Lines hashed with this function can
+     * be diffed with {@link #diff}.
+     *
+     * @param hash the hash so far, {@link #HASH_SEED} for an empty line
+     * @param b the next byte of the line, excluding the newline
+     * @return the extended hash
+     */
+    static int hash(int hash, byte b) {
+        // djb2, the same rolling hash RawTextComparator uses
+        return (hash << 5) + hash + (b & 0xff);
+    }
+
+    /**
+     * Hash every line of a blob while streaming it.
+     *
+     * @return the line hashes, or {@code null} if the blob is binary
+     */
+    private static LineHashes hashLines(ObjectReader reader, AnyObjectId id) throws IOException {
+        LineHashes lines = new LineHashes();
+        if (ObjectId.zeroId().equals(id)) {
+            return lines;
+        }
+        byte[] buf = new byte[BUFFER_SIZE];
+        long read = 0;
+        int hash = HASH_SEED;
+        boolean open = false;
+        try (ObjectStream in = reader.open(id).openStream()) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = buf[i];
+                    if (b == 0 && read + i < BINARY_SNIFF_LENGTH) {
+                        return null;
+                    }
+                    if (b == '\n') {
+                        lines.add(hash);
+                        hash = HASH_SEED;
+                        open = false;
+                    } else {
+                        hash = hash(hash, b);
+                        open = true;
+                    }
+                }
+                read += n;
+            }
+        }
+        if (open) {
+            lines.add(hash);
+        }
+        return lines;
+    }
+}
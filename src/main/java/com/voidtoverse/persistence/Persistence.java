@@ -1,171 +1,118 @@
 package com.voidtoverse.persistence;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.StringJoiner;
+import java.util.Map;
 
 /**
- * Handles reading and writing simple configuration files for the GitCodeQuality
+ * Handles reading and writing the user settings of the GitCodeQuality
  * application.
  *
- * <p>This class currently supports persistence of the list of recently opened
- * repositories. To avoid external JSON dependencies we store the list in a
- * minimal JSON array format. The file is located under the user’s home
- * directory in <code>~/.gitgui/recent_repos.json</code>. If the file does not
- * exist, an empty list will be returned.</p>
+ * <p>All settings live in a single JSON document under the user’s home
+ * directory, <code>~/.gitgui/user-settings.json</code>: the recently opened
+ * repositories, the last selection, the dashboard workspace, the window layout
+ * and free-form preferences. The document is loaded once and kept in memory by
+ * {@link SettingsStore}, so the load methods below never touch the disk after
+ * the first call and the save methods return immediately; changes are written
+ * in the background shortly afterwards. Call {@link #flush()} before exiting to
+ * save anything still pending.</p>
  */
 public final class Persistence {
-    private static final String CONFIG_DIR = System.getProperty("user.home") + "/.gitgui";
-    private static final String RECENT_FILE = CONFIG_DIR + "/recent_repos.json";
-
-    // file storing the last opened repository path
-    private static final String USER_SETTINGS_FILE = CONFIG_DIR + "/user-settings.json";
-
-    // file storing the last window layout (x,y,width,height)
-    private static final String WINDOW_LAYOUT_FILE = CONFIG_DIR + "/window-layout.json";
+    // keys of the settings document
+    static final String RECENT_REPOSITORIES = "recentRepositories";
+    static final String LAST_REPOSITORY = "lastRepository";
+    static final String WORKSPACE_ROOT = "workspaceRoot";
+    static final String WINDOW_LAYOUT = "windowLayout";
+    static final String PREFERENCES = "preferences";
 
     private Persistence() {}
 
     /**
-     * Load the list of recent repository paths from the JSON file.
+     * Load the list of recently opened repository paths.
      *
      * @return a list of absolute paths to recently opened Git repositories
      */
     public static List<String> loadRecentRepositories() {
-        Path path = Paths.get(RECENT_FILE);
         List<String> repos = new ArrayList<>();
-        if (!Files.exists(path)) {
-            return repos;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String json = reader.readLine();
-            // very simple parser: remove brackets and quotes, then split by comma
-            if (json != null && json.length() > 2) {
-                String content = json.substring(1, json.length() - 1);
-                for (String item : content.split(",")) {
-                    String trimmed = item.trim();
-                    if (trimmed.length() >= 2) {
-                        repos.add(trimmed.substring(1, trimmed.length() - 1));
-                    }
+        if (SettingsStore.get(RECENT_REPOSITORIES) instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof String path) {
+                    repos.add(path);
                 }
             }
-        } catch (IOException e) {
-            // ignore malformed file and return empty list
         }
         return repos;
     }
 
     /**
-     * Persist the given list of recent repository paths.
+     * Remember the given list of recent repository paths.
      *
-     * <p>This method writes the provided list to a JSON file under
-     * {@code ~/.gitgui/recent_repos.json}. A simple array of quoted paths is
-     * generated without relying on external JSON libraries. The parent
-     * directory is created on demand.</p>
-     *
-     * @param repos the list of paths to write
+     * @param repos the list of paths to store
      */
     public static void saveRecentRepositories(List<String> repos) {
-        try {
-            Path dir = Paths.get(CONFIG_DIR);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
-            Path file = Paths.get(RECENT_FILE);
-            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
-                StringJoiner joiner = new StringJoiner(",", "[", "]");
-                for (String repo : repos) {
-                    joiner.add("\"" + repo + "\"");
-                }
-                writer.write(joiner.toString());
-            }
-        } catch (IOException e) {
-            // silently ignore write failures
-        }
+        SettingsStore.put(RECENT_REPOSITORIES, List.copyOf(repos));
     }
 
     /**
-     * Load the last selected repository path from the user settings file.
+     * Load the last selected repository path.
      *
      * @return the path to the last repository, or {@code null} if none is stored
      */
     public static String loadLastRepository() {
-        Path path = Paths.get(USER_SETTINGS_FILE);
-        if (!Files.exists(path)) {
-            return null;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line = reader.readLine();
-            if (line != null && !line.isBlank()) {
-                return line.trim();
-            }
-        } catch (IOException e) {
-            // ignore and return null
-        }
-        return null;
+        return SettingsStore.get(LAST_REPOSITORY) instanceof String repo ? repo : null;
     }
 
     /**
-     * Persist the path of the last selected repository.
+     * Remember the path of the last selected repository.
      *
      * @param repo absolute path of the selected repository
      */
     public static void saveLastRepository(String repo) {
-        try {
-            Path dir = Paths.get(CONFIG_DIR);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
-            Path file = Paths.get(USER_SETTINGS_FILE);
-            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
-                writer.write(repo == null ? "" : repo);
-            }
-        } catch (IOException e) {
-            // ignore write failures
-        }
+        SettingsStore.put(LAST_REPOSITORY, repo == null || repo.isBlank() ? null : repo);
     }
 
     /**
-     * Load the last saved window layout.
+     * Load the workspace directory whose repositories the project dashboard scores.
      *
-     * <p>The layout file stores four comma-separated values: x, y, width and height. If the file
-     * does not exist or cannot be parsed, this method returns {@code null} to indicate there is no
-     * previously saved layout.</p>
+     * @return the workspace path, or {@code null} if none is configured
+     */
+    public static String loadWorkspaceRoot() {
+        return SettingsStore.get(WORKSPACE_ROOT) instanceof String workspace ? workspace : null;
+    }
+
+    /**
+     * Remember the workspace directory used by the project dashboard.
+     *
+     * @param workspace absolute path of the workspace, or {@code null} to fall back to recents
+     */
+    public static void saveWorkspaceRoot(String workspace) {
+        SettingsStore.put(WORKSPACE_ROOT, workspace == null || workspace.isBlank() ? null : workspace);
+    }
+
+    /**
+     * Load the last saved window layout.
      *
      * @return an array of four doubles [x, y, width, height] or {@code null} if no layout is saved
      */
     public static double[] loadWindowLayout() {
-        Path path = Paths.get(WINDOW_LAYOUT_FILE);
-        if (!Files.exists(path)) {
-            return null;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line = reader.readLine();
-            if (line != null && !line.isBlank()) {
-                String[] parts = line.trim().split(",");
-                if (parts.length == 4) {
-                    double[] vals = new double[4];
-                    for (int i = 0; i < 4; i++) {
-                        vals[i] = Double.parseDouble(parts[i]);
-                    }
-                    return vals;
+        if (SettingsStore.get(WINDOW_LAYOUT) instanceof List<?> list && list.size() == 4) {
+            double[] vals = new double[4];
+            for (int i = 0; i < 4; i++) {
+                if (!(list.get(i) instanceof Number number)) {
+                    return null;
                 }
+                vals[i] = number.doubleValue();
             }
-        } catch (Exception e) {
-            // ignore parse errors and fall through
+            return vals;
         }
         return null;
     }
 
     /**
-     * Persist the window layout (position and size).
+     * Remember the window layout (position and size). Cheap enough to call for
+     * every intermediate position while the window is dragged; only the last
+     * one within the flush delay is written.
      *
      * @param x the x coordinate of the window
      * @param y the y coordinate of the window
@@ -173,18 +120,7 @@ public final class Persistence {
      * @param height the height of the window
      */
     public static void saveWindowLayout(double x, double y, double width, double height) {
-        try {
-            Path dir = Paths.get(CONFIG_DIR);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
-            Path file = Paths.get(WINDOW_LAYOUT_FILE);
-            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
-                writer.write(x + "," + y + "," + width + "," + height);
-            }
-        } catch (IOException e) {
-            // ignore write failures
-        }
+        SettingsStore.put(WINDOW_LAYOUT, List.of(x, y, width, height));
     }
 
     /**
@@ -192,11 +128,46 @@ public final class Persistence {
      * revert to the default window size and position.
      */
     public static void clearWindowLayout() {
-        try {
-            Files.deleteIfExists(Paths.get(WINDOW_LAYOUT_FILE));
-        } catch (IOException e) {
-            // ignore delete errors
+        SettingsStore.put(WINDOW_LAYOUT, null);
+    }
+
+    /**
+     * Load a user-level preference, such as a scoring or display setting.
+     *
+     * @param key the preference name
+     * @return the stored value, or {@code null} if unset
+     */
+    public static String loadPreference(String key) {
+        if (SettingsStore.get(PREFERENCES) instanceof Map<?, ?> preferences
+                && preferences.get(key) instanceof String value) {
+            return value;
         }
+        return null;
     }
 
-}
\ No newline at end of file
+    /**
+     * Remember a user-level preference.
+     *
+     * @param key the preference name
+     * @param value the value, or {@code null} to remove the preference
+     */
+    public static void savePreference(String key, String value) {
+        Map<String, Object> preferences = new LinkedHashMap<>();
+        if (SettingsStore.get(PREFERENCES) instanceof Map<?, ?> current) {
+            current.forEach((k, v) -> preferences.put(String.valueOf(k), v));
+        }
+        if (value == null) {
+            preferences.remove(key);
+        } else {
+            preferences.put(key, value);
+        }
+        SettingsStore.put(PREFERENCES, preferences.isEmpty() ? null : preferences);
+    }
+
+    /**
+     * Write any pending changes to disk now. Called when the application exits.
+     */
+    public static void flush() {
+        SettingsStore.flush();
+    }
+}
@@ -0,0 +1,200 @@
+package com.voidtoverse.persistence;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache of commit scores stored in {@code ~/.gitgui/score-cache.bin}.
+ *
+ * <p>A commit's score never changes once the scoring formula is fixed, so
+ * history views only need to diff commits they have not seen before. Unlike
+ * the small settings files handled by {@link Persistence}, this file can hold
+ * hundreds of thousands of entries, so it uses a compact append-only binary
+ * layout instead of JSON:</p>
+ *
+ * <pre>
+ * header:  int magic 'GCQS', int file format version, int formula version
+ * record:  20-byte commit id, int files, int insertions, int deletions, int score
+ * </pre>
+ *
+ * <p>The whole file is read once into a hash map on first use, giving O(1)
+ * lookups afterwards, and new scores are appended. A record cut short by a
+ * crash is ignored on the next load. When the formula version recorded in the
+ * header differs from the one requested, the cached scores are ignored and the
+ * next append starts the file afresh, so a formula change invalidates every
+ * cached score cleanly.</p>
+ *
+ * <p>The GUI, the CLI, the daemon and the benchmarks may all use the file at
+ * once. Loading holds a shared {@link FileLock}; appending, and truncating a
+ * crashed record or a stale file, hold an exclusive one. Records are buffered
+ * as whole records and written in one positioned write under that lock, so
+ * writers in different processes never interleave partial records.</p>
+ */
+public final class ScoreCache {
+    private static final String CONFIG_DIR = System.getProperty("user.home") + "/.gitgui";
+    private static final String CACHE_FILE = CONFIG_DIR + "/score-cache.bin";
+
+    private static final int MAGIC = 0x47435153; // "GCQS"
+    private static final int FILE_FORMAT = 1;
+    private static final int HEADER_LENGTH = 12;
+    private static final int RECORD_LENGTH = Constants.OBJECT_ID_LENGTH + 16;
+
+    /** Records buffered before {@link #store} writes them without waiting for {@link #flush()}. */
+    private static final int PENDING_RECORDS = 256;
+
+    /** Cached statistics of one commit. */
+    public record Entry(int files, int insertions, int deletions, int score) {
+    }
+
+    // guarded by ScoreCache.class
+    private static Map<ObjectId, Entry> entries;
+    private static int loadedFormula;
+    private static final ByteBuffer PENDING = ByteBuffer.allocate(PENDING_RECORDS * RECORD_LENGTH);
+
+    private ScoreCache() {}
+
+    /**
+     * Look up the cached statistics of a commit.
+     *
+     * @param formulaVersion version of the scoring formula the caller uses
+     * @param commit the commit id
+     * @return the cached entry, or {@code null} if the commit has not been scored
+     */
+    public static synchronized Entry lookup(int formulaVersion, AnyObjectId commit) {
+        ensureLoaded(formulaVersion);
+        return entries.get(commit);
+    }
+
+    /**
+     * Record the statistics of a commit. The record is buffered; call
+     * {@link #flush()} once a batch of commits has been scored.
+     *
+     * @param formulaVersion version of the scoring formula that produced the values
+     * @param commit the commit id
+     * @param entry the statistics to remember
+     */
+    public static synchronized void store(int formulaVersion, AnyObjectId commit, Entry entry) {
+        ensureLoaded(formulaVersion);
+        ObjectId id = commit.copy();
+        if (entries.putIfAbsent(id, entry) != null) {
+            return;
+        }
+        byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        id.copyRawTo(raw, 0);
+        PENDING.put(raw).putInt(entry.files()).putInt(entry.insertions()).putInt(entry.deletions())
+                .putInt(entry.score());
+        if (!PENDING.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /**
+     * Write buffered records to disk.
+     */
+    public static synchronized void flush() {
+        if (PENDING.position() == 0) {
+            return;
+        }
+        PENDING.flip();
+        try {
+            append(loadedFormula, PENDING);
+        } catch (IOException e) {
+            // ignore write failures; the scores will simply be recomputed
+        } finally {
+            PENDING.clear();
+        }
+    }
+
+    /** Load the file on first use, or reset everything when the formula changed. */
+    private static void ensureLoaded(int formulaVersion) {
+        if (entries != null && loadedFormula == formulaVersion) {
+            return;
+        }
+        // pending records belong to the formula loaded so far
+        flush();
+        entries = new HashMap<>();
+        loadedFormula = formulaVersion;
+        Path path = Paths.get(CACHE_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        boolean stale = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // released when the channel closes; keeps appends from truncating the file under us
+            channel.lock(0, Long.MAX_VALUE, true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            stale = in.readInt() != MAGIC || in.readInt() != FILE_FORMAT || in.readInt() != formulaVersion;
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            while (!stale) {
+                in.readFully(raw);
+                Entry entry = new Entry(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                entries.put(ObjectId.fromRaw(raw), entry);
+            }
+        } catch (EOFException e) {
+            // end of file, possibly in the middle of a record left by a crash
+        } catch (IOException e) {
+            // unreadable cache: behave as if empty
+        }
+        if (stale) {
+            // written by another file format or scoring formula: the next append starts over
+            entries.clear();
+        }
+    }
+
+    /**
+     * Append whole records under an exclusive lock, writing the header first
+     * when the file is new or was written by another format or formula. A
+     * partial trailing record left by a crash is truncated so appends stay
+     * aligned.
+     */
+    private static void append(int formulaVersion, ByteBuffer records) throws IOException {
+        Path dir = Paths.get(CONFIG_DIR);
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(CACHE_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // released when the channel closes
+            channel.lock();
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            boolean current = size >= HEADER_LENGTH && channel.read(header, 0) == HEADER_LENGTH
+                    && header.getInt(0) == MAGIC && header.getInt(4) == FILE_FORMAT
+                    && header.getInt(8) == formulaVersion;
+            if (!current) {
+                channel.truncate(0);
+                header.clear();
+                header.putInt(MAGIC).putInt(FILE_FORMAT).putInt(formulaVersion).flip();
+                writeFully(channel, header, 0);
+                size = HEADER_LENGTH;
+            }
+            long aligned = HEADER_LENGTH + (size - HEADER_LENGTH) / RECORD_LENGTH * RECORD_LENGTH;
+            if (aligned != size) {
+                channel.truncate(aligned);
+            }
+            writeFully(channel, records, aligned);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
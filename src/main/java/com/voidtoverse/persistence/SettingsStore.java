@@ -0,0 +1,230 @@
+package com.voidtoverse.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the user settings backed by {@code ~/.gitgui/user-settings.json}.
+ *
+ * <p>The file is read once, on first access. Updates change the in-memory map
+ * and schedule a write on a background thread; further updates within
+ * {@link #FLUSH_DELAY_MILLIS} are folded into the same write, so dragging the
+ * window costs one file write instead of hundreds. Writes go to a temporary
+ * file that is synced and then renamed over the settings file, so a crash
+ * leaves either the old or the new settings, never a truncated file.</p>
+ *
+ * <p>Before this store existed each setting lived in its own file and
+ * {@code user-settings.json} held just the last repository path. When the file
+ * is not a JSON object, those legacy files are imported once, a write of the
+ * unified layout is scheduled, and the legacy files are deleted once that write
+ * has succeeded.</p>
+ */
+final class SettingsStore {
+    /** Delay between the first unsaved change and the write that saves it. */
+    static final long FLUSH_DELAY_MILLIS = 500;
+
+    private static final Path CONFIG_DIR = Paths.get(System.getProperty("user.home"), ".gitgui");
+    private static final Path SETTINGS_FILE = CONFIG_DIR.resolve("user-settings.json");
+    private static final Path TEMP_FILE = CONFIG_DIR.resolve("user-settings.json.tmp");
+
+    // legacy single-setting files, read only when migrating
+    private static final Path LEGACY_RECENT = CONFIG_DIR.resolve("recent_repos.json");
+    private static final Path LEGACY_LAYOUT = CONFIG_DIR.resolve("window-layout.json");
+    private static final Path LEGACY_WORKSPACE = CONFIG_DIR.resolve("workspace.json");
+
+    // held across a whole write so that concurrent flushes never share the temporary file;
+    // taken before SettingsStore.class, never while holding it
+    private static final Object WRITE_LOCK = new Object();
+
+    // guarded by SettingsStore.class
+    private static Map<String, Object> settings;
+    private static boolean dirty;
+    private static boolean flushScheduled;
+    private static boolean legacyImported;
+    private static ScheduledExecutorService flusher;
+
+    private SettingsStore() {}
+
+    /**
+     * Read a setting.
+     *
+     * @param key the setting name
+     * @return the value as parsed by {@link Json}, or {@code null} if unset
+     */
+    static synchronized Object get(String key) {
+        return settings().get(key);
+    }
+
+    /**
+     * Change a setting and schedule a write.
+     *
+     * @param key the setting name
+     * @param value a value {@link Json#write} accepts; {@code null} removes the setting
+     */
+    static synchronized void put(String key, Object value) {
+        Map<String, Object> map = settings();
+        Object previous = value == null ? map.remove(key) : map.put(key, value);
+        if (value == null ? previous == null : value.equals(previous)) {
+            return;
+        }
+        dirty = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher().schedule(SettingsStore::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write pending changes now. Called by the flusher thread, at shutdown and
+     * by anything that needs the file to be current. Concurrent calls write one
+     * after the other, each with the settings as they are when its turn comes.
+     */
+    static void flush() {
+        synchronized (WRITE_LOCK) {
+            String json;
+            synchronized (SettingsStore.class) {
+                flushScheduled = false;
+                // checked under WRITE_LOCK: a flush that waited for another one finds nothing left to write
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                json = Json.write(settings);
+            }
+            try {
+                writeAtomically(json);
+                deleteLegacyFiles();
+            } catch (IOException e) {
+                // keep the change in memory and try again with the next update or at exit
+                synchronized (SettingsStore.class) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> settings() {
+        if (settings == null) {
+            settings = load();
+        }
+        return settings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> load() {
+        String text = null;
+        try {
+            text = Files.readString(SETTINGS_FILE, StandardCharsets.UTF_8);
+            if (Json.parse(text) instanceof Map<?, ?> map) {
+                return (Map<String, Object>) map;
+            }
+        } catch (IOException e) {
+            // no settings yet
+        } catch (IllegalArgumentException e) {
+            // not JSON: the file predates the store and holds the last repository path
+        }
+        return migrate(text);
+    }
+
+    /** Gather the settings of the old one-file-per-setting layout. */
+    private static Map<String, Object> migrate(String lastRepository) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (lastRepository != null && !lastRepository.isBlank()) {
+            map.put(Persistence.LAST_REPOSITORY, lastRepository.trim());
+        }
+        try {
+            if (Files.exists(LEGACY_RECENT)) {
+                map.put(Persistence.RECENT_REPOSITORIES, Json.parse(Files.readString(LEGACY_RECENT,
+                        StandardCharsets.UTF_8).trim()));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // unreadable legacy list: start without recents
+        }
+        try {
+            if (Files.exists(LEGACY_LAYOUT)) {
+                map.put(Persistence.WINDOW_LAYOUT, Json.parse("[" + Files.readString(LEGACY_LAYOUT,
+                        StandardCharsets.UTF_8).trim() + "]"));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // unreadable legacy layout: use the default placement
+        }
+        try {
+            if (Files.exists(LEGACY_WORKSPACE)) {
+                String workspace = Files.readString(LEGACY_WORKSPACE, StandardCharsets.UTF_8).trim();
+                if (!workspace.isEmpty()) {
+                    map.put(Persistence.WORKSPACE_ROOT, workspace);
+                }
+            }
+        } catch (IOException e) {
+            // unreadable legacy workspace: fall back to recents
+        }
+        if (!map.isEmpty()) {
+            // write the unified file even if nothing else changes
+            legacyImported = true;
+            dirty = true;
+            flushScheduled = true;
+            flusher().schedule(SettingsStore::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return map;
+    }
+
+    /** Remove the legacy files once their settings are safely in the unified file. */
+    private static void deleteLegacyFiles() {
+        synchronized (SettingsStore.class) {
+            if (!legacyImported) {
+                return;
+            }
+            legacyImported = false;
+        }
+        for (Path legacy : new Path[] {LEGACY_RECENT, LEGACY_LAYOUT, LEGACY_WORKSPACE}) {
+            try {
+                Files.deleteIfExists(legacy);
+            } catch (IOException e) {
+                // harmless leftover: the unified file is JSON, so it is never migrated again
+            }
+        }
+    }
+
+    private static void writeAtomically(String json) throws IOException {
+        Files.createDirectories(CONFIG_DIR);
+        try (FileChannel channel = FileChannel.open(TEMP_FILE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(TEMP_FILE, SETTINGS_FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(TEMP_FILE, SETTINGS_FILE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "settings-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            // the flusher is a daemon; make sure a pending change survives a normal exit
+            Runtime.getRuntime().addShutdownHook(new Thread(SettingsStore::flush, "settings-flush-on-exit"));
+        }
+        return flusher;
+    }
+}
@@ -1,10 +1,14 @@
 package com.voidtoverse.ui;
 
-import com.voidtoverse.engine.QualityEngine;
-import com.voidtoverse.engine.QualityEngine.Result;
+import com.voidtoverse.engine.CommitPipeline;
+import com.voidtoverse.engine.ScoringRules;
+import com.voidtoverse.engine.ScoringService;
+import com.voidtoverse.watcher.RepositoryWatcher;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
@@ -12,7 +16,11 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.geometry.Rectangle2D;
 import javafx.stage.Screen;
-import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.EmptyCommitException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Sets up the main window showing commit quality information and controls.
@@ -22,8 +30,75 @@ import org.eclipse.jgit.api.Git;
  * commit message, and a row of buttons for common actions. Future sprints will
  * replace this placeholder with a fully featured interface that connects to a
  * real Git repository and computes quality scores based on actual changes.</p>
+ *
+ * <p>{@link #setup} only builds the controls. Scoring and watching the
+ * repository start after the window has been drawn (see {@link FirstFrame}), and
+ * neither reads the repository on the FX thread, so the window appears at once
+ * even for a large repository.</p>
+ *
+ * <p>The banner predicts the quality the commit will get while the message is
+ * typed: as soon as the message matches one of the project's exemption keywords
+ * it shows a perfect score, and it falls back to the staged score when the
+ * keyword is removed again. The staged score is only recomputed when the
+ * repository changes, so a keystroke costs a keyword check and nothing else.</p>
  */
 public final class CommitQualityFrame {
+    // watches the repository currently shown so the banner follows working tree changes
+    private static RepositoryWatcher watcher;
+
+    // registers watchers off the FX thread; walking a large working tree takes a while
+    private static final ExecutorService WATCHER_SETUP = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "repository-watcher-setup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * What the banner shows: the score of the staged changes, or a perfect score
+     * while the message being typed is exempt.
+     *
+     * <p>Scoring hands its result over together with the rules it was computed
+     * with, and each keystroke only checks the message against those rules, so
+     * typing never touches the repository. Only used on the FX thread.</p>
+     */
+    private static final class Prediction {
+        private final Label banner;
+        private ScoringRules rules = ScoringRules.DEFAULT;
+        private String staged;
+        private String message = "";
+
+        Prediction(Label banner) {
+            this.banner = banner;
+            this.staged = banner.getText();
+        }
+
+        /**
+         * Replace the staged score.
+         *
+         * @param stagedText the banner text for the staged changes
+         * @param rules the repository's rules, whose exemptions apply to the message
+         */
+        void update(String stagedText, ScoringRules rules) {
+            this.staged = stagedText;
+            this.rules = rules;
+            show();
+        }
+
+        /**
+         * Replace the message being typed.
+         *
+         * @param message the current commit message
+         */
+        void message(String message) {
+            this.message = message;
+            show();
+        }
+
+        private void show() {
+            banner.setText(rules.isExempt(message) ? qualityText(100, "100") : staged);
+        }
+    }
+
     private CommitQualityFrame() {}
 
     /**
@@ -46,24 +121,46 @@ public final class CommitQualityFrame {
         TextArea msgBox = new TextArea();
         Button commitBtn = new Button("Commit");
         Button advancedBtn = new Button("Advanced");
+        Button changesBtn = new Button("Changes");
         Button switchBtn = new Button("Switch");
+        Button dashboardBtn = new Button("Dashboard");
+        Button diagnosticsBtn = new Button("Diagnostics");
 
-        // If a repository is selected, compute the current commit quality
+        Prediction prediction;
+
+        // If a repository is selected, compute the current commit quality in the background
+        // once the window is on screen
         if (repo != null) {
-            Result result = QualityEngine.calculateQuality(repo);
-            String[] desc = com.voidtoverse.engine.QualityDescriptor.describe(result.quality());
-            qualityLabel = new Label(desc[0] + " Commit Quality: " + result.quality() + "% — \"" + desc[1] + "\"");
+            qualityLabel = new Label("Calculating commit quality…");
+            prediction = new Prediction(qualityLabel);
+            // exemption keywords take effect in the banner while they are typed
+            msgBox.textProperty().addListener((obs, oldText, text) -> prediction.message(text));
+            FirstFrame.afterNextFrame(() -> {
+                refreshQuality(prediction, repo);
+                WATCHER_SETUP.execute(() -> watchRepository(prediction, repo));
+            });
             commitBtn.setDisable(false);
             advancedBtn.setDisable(false);
+            changesBtn.setDisable(false);
         } else {
             // No repository selected: show a placeholder message and disable commit/history features
             qualityLabel = new Label("No git repository selected");
+            prediction = null;
+            WATCHER_SETUP.execute(() -> watchRepository(null, null));
+            // load JGit now so that picking a repository does not pay for it
+            FirstFrame.afterNextFrame(ScoringService::warmUp);
             commitBtn.setDisable(true);
             advancedBtn.setDisable(true);
+            changesBtn.setDisable(true);
         }
 
-        HBox controls = new HBox(10, commitBtn, advancedBtn, switchBtn);
-        VBox root = new VBox(10, qualityLabel, msgLabel, msgBox, controls);
+        HBox controls = new HBox(10, commitBtn, advancedBtn, changesBtn, switchBtn, dashboardBtn, diagnosticsBtn);
+        // progress and outcome of the last commit
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setVisible(false);
+        Label statusLabel = new Label();
+        HBox status = new HBox(10, progressBar, statusLabel);
+        VBox root = new VBox(10, qualityLabel, msgLabel, msgBox, controls, status);
         Scene scene = new Scene(root, 500, 300);
         stage.setScene(scene);
 
@@ -85,38 +182,49 @@ public final class CommitQualityFrame {
             }
         });
 
-        // Commit action: stage and commit all changes then refresh quality
+        // List the staged files by their share of the score
+        changesBtn.setOnAction(evt -> {
+            if (repo != null) {
+                StagingPanel.showStaging(stage, repo);
+            }
+        });
+
+        // Show quality cards for all recent or workspace repositories
+        dashboardBtn.setOnAction(evt -> ProjectDashboard.showDashboard(stage));
+
+        // Show scoring and JGit timings collected since startup
+        diagnosticsBtn.setOnAction(evt -> DiagnosticsPanel.showDiagnostics(stage));
+
+        // Commit action: stage and commit all changes in the background, then refresh quality
         commitBtn.setOnAction(evt -> {
             // Guard against null repo (should be disabled anyway)
-            if (repo == null) {
+            if (repo == null || CommitPipeline.isRunning()) {
                 return;
             }
             String message = msgBox.getText().trim();
             if (message.isEmpty()) {
                 return;
             }
-            try {
-                // Use JGit API to stage and commit all changes
-                Git git = Git.open(repo);
-                // Add all changes
-                git.add().addFilepattern(".").call();
-                // Perform commit
-                git.commit().setMessage(message).call();
-                git.close();
-            } catch (Exception e) {
-                // ignore commit errors silently
-            }
-            // Recalculate quality after commit
-            Result r = QualityEngine.calculateQuality(repo);
-            int qualityValue = r.quality();
-            // if the commit message contains one of the exception keywords, force 100 quality
-            String lower = message.toLowerCase();
-            if (lower.startsWith("refactor:") || lower.contains("bulk rename") || lower.contains("initial commit")) {
-                qualityValue = 100;
-            }
-            String[] newDesc = com.voidtoverse.engine.QualityDescriptor.describe(qualityValue);
-            qualityLabel.setText(newDesc[0] + " Commit Quality: " + qualityValue + "% — \"" + newDesc[1] + "\"");
-            msgBox.clear();
+            commitBtn.setDisable(true);
+            progressBar.setProgress(-1);
+            progressBar.setVisible(true);
+            statusLabel.setText("Committing…");
+            CommitPipeline.commitAll(repo, message, (step, fraction) -> Platform.runLater(() -> {
+                statusLabel.setText(step);
+                progressBar.setProgress(fraction);
+            })).whenComplete((outcome, e) -> Platform.runLater(() -> {
+                commitBtn.setDisable(false);
+                progressBar.setVisible(false);
+                if (e != null) {
+                    statusLabel.setText(commitFailure(e));
+                    return;
+                }
+                statusLabel.setText("Committed " + outcome.commitId() + " (" + (outcome.staged() + outcome.removed())
+                        + " files staged)");
+                msgBox.clear();
+                int quality = outcome.quality().quality();
+                prediction.update(qualityText(quality, String.valueOf(quality)), prediction.rules);
+            }));
         });
 
         // Listen for F12 to reset the window size and position and clear the saved layout
@@ -135,4 +243,99 @@ public final class CommitQualityFrame {
             }
         });
     }
+
+    /**
+     * Stop watching the current repository. Called when the application exits.
+     */
+    public static void dispose() {
+        watchRepository(null, null);
+    }
+
+    /**
+     * Replace the active working tree watcher with one for {@code repo}.
+     *
+     * <p>Changes are batched by {@link RepositoryWatcher} so that a burst of file
+     * events results in a single background rescore.</p>
+     *
+     * @param prediction the banner to refresh on changes
+     * @param repo the repository to watch, or {@code null} to stop watching
+     */
+    private static synchronized void watchRepository(Prediction prediction, java.io.File repo) {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        if (repo == null) {
+            return;
+        }
+        try {
+            watcher = new RepositoryWatcher(repo, RepositoryWatcher.DEFAULT_DEBOUNCE_MILLIS,
+                    () -> refreshQuality(prediction, repo));
+        } catch (java.io.IOException e) {
+            // live updates are a convenience; the banner still refreshes after commits
+        }
+    }
+
+    /**
+     * Recompute the quality of the staged changes on the {@link ScoringService}
+     * thread and publish it to the banner on the FX thread once available.
+     *
+     * <p>A line-count estimate is shown first. When its bounds straddle a
+     * quality band the exact diff is computed next and replaces it; otherwise
+     * the estimate already tells the user everything the band would. Results of
+     * requests superseded by a newer one are dropped, so the banner always ends
+     * up showing the most recent state of the index. When neither the index
+     * nor HEAD changed since the last run, the engine answers from its staged
+     * snapshot without diffing.</p>
+     *
+     * <p>The rules are looked up here, on the scoring thread, and handed to the
+     * banner with the score, so that checking the message for exemption keywords
+     * while typing needs no file access.</p>
+     *
+     * @param prediction the banner to update
+     * @param repo the repository to score
+     */
+    private static void refreshQuality(Prediction prediction, java.io.File repo) {
+        ScoringService.estimate(repo).thenAccept(estimate -> {
+            ScoringRules rules = ScoringRules.forRepository(repo);
+            int best = estimate.bestQuality();
+            int worst = estimate.worstQuality();
+            String percent = best == worst ? String.valueOf(best) : "≈" + worst + "–" + best;
+            String text = qualityText(best, percent);
+            Platform.runLater(() -> prediction.update(text, rules));
+            if (!estimate.isConclusive()) {
+                ScoringService.submit(repo).thenAccept(result -> {
+                    String exact = qualityText(result.quality(), String.valueOf(result.quality()));
+                    Platform.runLater(() -> prediction.update(exact, rules));
+                });
+            }
+        });
+    }
+
+    /**
+     * Describe why a commit failed.
+     *
+     * @param e the exception the commit pipeline completed with
+     * @return a message for the status line
+     */
+    private static String commitFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof EmptyCommitException) {
+            return "Nothing to commit";
+        }
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        return "Commit failed: " + reason;
+    }
+
+    /**
+     * Format the banner text for a quality value.
+     *
+     * @param quality the quality used to pick the emoji and message
+     * @param percent the percentage to display, possibly a range
+     * @return the banner text
+     */
+    private static String qualityText(int quality, String percent) {
+        String[] desc = com.voidtoverse.engine.QualityDescriptor.describe(quality);
+        return desc[0] + " Commit Quality: " + percent + "% — \"" + desc[1] + "\"";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.voidtoverse.ui;
+
+import com.voidtoverse.diagnostics.Metrics;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Shows the engine's {@link Metrics}: latency percentiles of repository opens,
+ * diff listing, per-file diffs and whole scoring runs, plus the counters of
+ * cache hits, large-object fallbacks and failures. The figures can be exported
+ * as JSON or Prometheus text to attach to a bug report.
+ */
+public final class DiagnosticsPanel {
+    private DiagnosticsPanel() {}
+
+    /**
+     * Open the diagnostics window.
+     *
+     * @param owner the main window
+     */
+    public static void showDiagnostics(Stage owner) {
+        TextArea table = new TextArea(Metrics.summary());
+        table.setEditable(false);
+        table.setStyle("-fx-font-family: monospace;");
+        Button refreshBtn = new Button("Refresh");
+        Button resetBtn = new Button("Reset");
+        Button jsonBtn = new Button("Export JSON…");
+        Button promBtn = new Button("Export Prometheus…");
+        Label status = new Label();
+        HBox toolbar = new HBox(10, refreshBtn, resetBtn, jsonBtn, promBtn, status);
+        toolbar.setStyle("-fx-padding: 10;");
+        BorderPane root = new BorderPane(table);
+        root.setTop(toolbar);
+
+        Stage dialog = new Stage();
+        dialog.initOwner(owner);
+        dialog.setTitle("Diagnostics");
+        dialog.setScene(new Scene(root, 700, 350));
+
+        refreshBtn.setOnAction(evt -> table.setText(Metrics.summary()));
+        resetBtn.setOnAction(evt -> {
+            Metrics.reset();
+            table.setText(Metrics.summary());
+        });
+        jsonBtn.setOnAction(evt -> export(dialog, status, "gitgui-metrics.json"));
+        promBtn.setOnAction(evt -> export(dialog, status, "gitgui-metrics.prom"));
+        dialog.show();
+    }
+
+    /**
+     * Ask for a target file and write the metrics to it; the format follows
+     * the file extension (see {@link Metrics#export}).
+     */
+    private static void export(Stage dialog, Label status, String initialName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Metrics");
+        chooser.setInitialFileName(initialName);
+        File file = chooser.showSaveDialog(dialog);
+        if (file == null) {
+            return;
+        }
+        try {
+            Metrics.export(file.toPath());
+            status.setText("Saved " + file.getName());
+        } catch (IOException e) {
+            status.setText("Export failed: " + e.getMessage());
+        }
+    }
+}
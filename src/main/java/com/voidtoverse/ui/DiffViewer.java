@@ -0,0 +1,184 @@
+package com.voidtoverse.ui;
+
+import com.voidtoverse.engine.RepositoryExecutor;
+import com.voidtoverse.engine.SideBySideDiff;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Locale;
+
+/**
+ * Shows the staged change of one file side by side: HEAD on the left, the
+ * index on the right.
+ *
+ * <p>The file is laid out by {@link SideBySideDiff} on a virtual thread;
+ * large blobs are memory-mapped rather than loaded. The list view's items are
+ * a virtual list of row numbers that stores nothing, and the list view only
+ * creates cells for the rows on screen, so a file of a million lines costs the
+ * same to display as a small one. Each cell decodes and highlights its own two
+ * lines when it is shown, which keeps syntax highlighting to the viewport.</p>
+ */
+public final class DiffViewer {
+    private static final double ROW_HEIGHT = 18;
+
+    private static final String REMOVED_STYLE = "-fx-background-color: #ffebe9;";
+    private static final String ADDED_STYLE = "-fx-background-color: #e6ffec;";
+    private static final String CHANGED_LEFT_STYLE = "-fx-background-color: #fff1e5;";
+    private static final String CHANGED_RIGHT_STYLE = "-fx-background-color: #fffbdd;";
+    private static final String EMPTY_STYLE = "-fx-background-color: #f6f8fa;";
+
+    private DiffViewer() {}
+
+    /**
+     * Open a window with the staged diff of a file.
+     *
+     * @param owner the window to attach to
+     * @param repo the repository directory
+     * @param oldPath the path the file has in HEAD; differs from {@code path} for renames and copies
+     * @param path the repository-relative path of a staged file
+     */
+    public static void showDiff(Stage owner, File repo, String oldPath, String path) {
+        ListView<Integer> listView = new ListView<>();
+        listView.setFixedCellSize(ROW_HEIGHT);
+        listView.setStyle("-fx-font-family: monospace;");
+        Label status = new Label("Loading " + path + "…");
+        Button nextBtn = new Button("Next Change");
+        nextBtn.setDisable(true);
+        HBox toolbar = new HBox(10, nextBtn, status);
+        toolbar.setStyle("-fx-padding: 10;");
+        BorderPane root = new BorderPane(listView);
+        root.setTop(toolbar);
+
+        Stage dialog = new Stage();
+        dialog.initOwner(owner);
+        dialog.setTitle("Diff - " + path);
+        dialog.setScene(new Scene(root, 1000, 600));
+
+        // the diff is closed when the window is, or as soon as it loads if the window is gone by then
+        SideBySideDiff[] loaded = new SideBySideDiff[1];
+        boolean[] hidden = new boolean[1];
+        dialog.setOnHidden(evt -> {
+            hidden[0] = true;
+            if (loaded[0] != null) {
+                loaded[0].close();
+            }
+        });
+        RepositoryExecutor.execute(() -> {
+            try {
+                SideBySideDiff diff = SideBySideDiff.ofStaged(repo, oldPath, path);
+                Platform.runLater(() -> {
+                    if (hidden[0]) {
+                        diff.close();
+                        return;
+                    }
+                    loaded[0] = diff;
+                    show(diff, listView, status, nextBtn);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> status.setText("Cannot show diff: " + e.getMessage()));
+            }
+        });
+        dialog.show();
+    }
+
+    private static void show(SideBySideDiff diff, ListView<Integer> listView, Label status, Button nextBtn) {
+        if (diff.isBinary()) {
+            status.setText("Binary file");
+            return;
+        }
+        SyntaxHighlighter highlighter = SyntaxHighlighter.forPath(diff.path());
+        listView.setCellFactory(view -> new RowCell(diff, highlighter));
+        int rows = diff.rowCount();
+        listView.setItems(FXCollections.observableList(new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        }));
+        status.setText(diff.edits().size() + " hunks, " + rows + " rows");
+        int[] current = {-1};
+        nextBtn.setDisable(diff.nextHunk(-1) < 0);
+        nextBtn.setOnAction(evt -> {
+            int next = diff.nextHunk(current[0]);
+            if (next < 0) {
+                next = diff.nextHunk(-1);
+            }
+            current[0] = next;
+            listView.scrollTo(next);
+        });
+    }
+
+    /** Renders both sides of one row, highlighting them when the row comes into view. */
+    private static final class RowCell extends ListCell<Integer> {
+        private final SideBySideDiff diff;
+        private final SyntaxHighlighter highlighter;
+        private final TextFlow left = new TextFlow();
+        private final TextFlow right = new TextFlow();
+        private final HBox graphic = new HBox(left, right);
+
+        RowCell(SideBySideDiff diff, SyntaxHighlighter highlighter) {
+            this.diff = diff;
+            this.highlighter = highlighter;
+            // equal halves: both sides start from nothing and share the width
+            for (TextFlow side : new TextFlow[] {left, right}) {
+                side.setPrefWidth(0);
+                side.setMinWidth(0);
+                HBox.setHgrow(side, Priority.ALWAYS);
+            }
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            setText(null);
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+            SideBySideDiff.Kind kind = diff.kind(row);
+            fill(left, diff.leftLine(row), diff.leftText(row), switch (kind) {
+                case SAME -> "";
+                case CHANGED -> CHANGED_LEFT_STYLE;
+                case REMOVED -> REMOVED_STYLE;
+                case ADDED -> EMPTY_STYLE;
+            });
+            fill(right, diff.rightLine(row), diff.rightText(row), switch (kind) {
+                case SAME -> "";
+                case CHANGED -> CHANGED_RIGHT_STYLE;
+                case ADDED -> ADDED_STYLE;
+                case REMOVED -> EMPTY_STYLE;
+            });
+            setGraphic(graphic);
+        }
+
+        private void fill(TextFlow side, int line, String text, String style) {
+            side.setStyle(style);
+            side.getChildren().clear();
+            if (text == null) {
+                return;
+            }
+            Text number = new Text(String.format(Locale.ROOT, "%6d  ", line + 1));
+            number.setStyle("-fx-fill: #8c8c8c;");
+            side.getChildren().add(number);
+            side.getChildren().addAll(highlighter.highlight(text));
+        }
+    }
+}
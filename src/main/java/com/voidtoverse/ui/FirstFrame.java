@@ -0,0 +1,34 @@
+package com.voidtoverse.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Defers work until the window has actually been drawn.
+ *
+ * <p>{@code Stage.show()} only makes the window visible; its content is
+ * rendered on the next pulse of the JavaFX toolkit. Anything queued with
+ * {@code Platform.runLater} before that pulse competes with it, which is how
+ * repository work started from {@code start()} used to delay the first frame.
+ * An {@link AnimationTimer} is called at the beginning of each pulse, so the
+ * task below is queued from the first pulse after the call and runs once that
+ * pulse, including its rendering, has completed.</p>
+ */
+public final class FirstFrame {
+    private FirstFrame() {}
+
+    /**
+     * Run a task on the FX thread after the next frame has been rendered.
+     *
+     * @param task the task to run
+     */
+    public static void afterNextFrame(Runnable task) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                Platform.runLater(task);
+            }
+        }.start();
+    }
+}
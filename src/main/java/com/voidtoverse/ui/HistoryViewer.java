@@ -1,49 +1,258 @@
 package com.voidtoverse.ui;
 
+import com.voidtoverse.engine.CommitPager;
+import com.voidtoverse.engine.HistoryAnalyzer;
+import com.voidtoverse.engine.RepositoryExecutor;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Displays a simple list of recent commits for the selected repository.
+ * Displays the commit history of the selected repository.
+ *
+ * <p>The list is backed by a {@link CommitPager}: commits are walked one page at
+ * a time on a background thread as the user scrolls, so the first page shows up
+ * immediately however long the history is. The pager itself is opened on a
+ * {@link RepositoryExecutor} thread, so the window appears before the
+ * repository has been read. Only a bounded window of pages is kept in memory,
+ * and scores, when enabled, are computed only for the rows the list view
+ * actually renders.</p>
  */
 public final class HistoryViewer {
+    /** Number of scored commits handed to the FX thread at once. */
+    private static final int ROW_BATCH = 200;
+
     private HistoryViewer() {}
 
     /**
-     * Show a modal window containing the output of `git log --oneline`.
+     * Show a modal window listing the history in `git log --oneline` form.
      *
      * @param owner the parent stage to block
      * @param repo the repository directory
      */
     public static void showHistory(Stage owner, File repo) {
-        List<String> commits = new ArrayList<>();
-        if (repo != null) {
-            try {
-                // Use JGit to retrieve the last 50 commits in abbreviated form
-                org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.open(repo);
-                Iterable<org.eclipse.jgit.revwalk.RevCommit> logs = git.log().setMaxCount(50).call();
-                for (org.eclipse.jgit.revwalk.RevCommit commit : logs) {
-                    String abbrev = commit.getId().abbreviate(7).name();
-                    commits.add(abbrev + " " + commit.getShortMessage());
-                }
-                git.close();
-            } catch (Exception e) {
+        ListView<Integer> listView = new ListView<>();
+        CheckBox showScores = new CheckBox("Show scores");
+        // enabled once the pager is open
+        showScores.setDisable(true);
+        Button analyzeBtn = new Button("Analyze Quality…");
+        analyzeBtn.setDisable(repo == null);
+        HBox buttons = new HBox(10, showScores, analyzeBtn);
+        buttons.setStyle("-fx-padding: 10;");
+        BorderPane root = new BorderPane(listView);
+        root.setBottom(buttons);
+        Stage dialog = new Stage();
+        dialog.initOwner(owner);
+        dialog.initModality(Modality.WINDOW_MODAL);
+        dialog.setTitle("Commit History");
+        dialog.setScene(new Scene(root, 600, 400));
+        analyzeBtn.setOnAction(evt -> showAnalytics(dialog, repo));
+        // touched only on the FX thread
+        AtomicReference<CommitPager> opened = new AtomicReference<>();
+        dialog.setOnHidden(evt -> {
+            if (opened.get() != null) {
+                opened.get().close();
+            }
+        });
+        dialog.show();
+        if (repo == null) {
+            return;
+        }
+        // opening the repository and resolving HEAD read files, so keep them off the FX thread
+        RepositoryExecutor.submit(() -> new CommitPager(repo)).whenComplete((pager, error) -> Platform.runLater(() -> {
+            if (pager == null) {
                 // ignore errors; fall back to empty history
+                return;
+            }
+            if (!dialog.isShowing()) {
+                pager.close();
+                return;
+            }
+            opened.set(pager);
+            PagedHistory history = new PagedHistory(pager, listView, showScores);
+            listView.setCellFactory(view -> history.new HistoryCell());
+            showScores.setOnAction(evt -> listView.refresh());
+            showScores.setDisable(false);
+            history.requestMore();
+        }));
+    }
+
+    /**
+     * State of one history window. The list items are plain row indices; the
+     * text of each row is looked up in the pager when its cell is rendered.
+     * Touched only on the FX thread.
+     */
+    private static final class PagedHistory {
+        private final CommitPager pager;
+        private final ListView<Integer> listView;
+        private final CheckBox showScores;
+        private boolean loading;
+        private boolean complete;
+
+        PagedHistory(CommitPager pager, ListView<Integer> listView, CheckBox showScores) {
+            this.pager = pager;
+            this.listView = listView;
+            this.showScores = showScores;
+        }
+
+        /** Append the next page of rows unless one is already on its way. */
+        void requestMore() {
+            if (loading || complete) {
+                return;
+            }
+            loading = true;
+            int page = listView.getItems().size() / CommitPager.PAGE_SIZE;
+            pager.loadPage(page).whenComplete((rows, error) -> Platform.runLater(() -> {
+                loading = false;
+                if (error != null || rows.size() < CommitPager.PAGE_SIZE) {
+                    complete = true;
+                }
+                if (rows != null) {
+                    List<Integer> indices = new ArrayList<>(rows.size());
+                    int first = page * CommitPager.PAGE_SIZE;
+                    for (int i = 0; i < rows.size(); i++) {
+                        indices.add(first + i);
+                    }
+                    listView.getItems().addAll(indices);
+                }
+            }));
+        }
+
+        private void refreshLater() {
+            Platform.runLater(listView::refresh);
+        }
+
+        final class HistoryCell extends ListCell<Integer> {
+            @Override
+            protected void updateItem(Integer index, boolean empty) {
+                super.updateItem(index, empty);
+                if (empty || index == null) {
+                    setText(null);
+                    return;
+                }
+                int page = index / CommitPager.PAGE_SIZE;
+                List<CommitPager.Row> rows = pager.peekPage(page);
+                if (rows == null) {
+                    // evicted while scrolled out of view: rebuild it from the walked commits
+                    setText("Loading…");
+                    pager.loadPage(page).thenRun(PagedHistory.this::refreshLater);
+                    return;
+                }
+                CommitPager.Row row = rows.get(index % CommitPager.PAGE_SIZE);
+                String text = row.abbreviated() + " " + row.summary();
+                if (showScores.isSelected()) {
+                    HistoryAnalyzer.CommitScore score = pager.peekScore(index);
+                    if (score != null) {
+                        text += "  —  " + score.quality() + "% (score " + score.score() + ")";
+                    } else {
+                        text += "  —  …";
+                        pager.loadScore(index).thenRun(PagedHistory.this::refreshLater);
+                    }
+                }
+                setText(text);
+                // keep a page of rows ahead of the viewport
+                if (index >= listView.getItems().size() - CommitPager.PAGE_SIZE / 2) {
+                    requestMore();
+                }
             }
         }
-        ListView<String> listView = new ListView<>();
-        listView.getItems().addAll(commits);
+    }
+
+    /**
+     * Score every commit of the repository and show the results with per-author
+     * and per-week trends.
+     *
+     * <p>The walk runs on a virtual thread through {@link HistoryAnalyzer}.
+     * Scored commits are handed to the FX thread in batches so that a long
+     * history does not flood the event queue, and the walk is cancelled when the
+     * window is closed.</p>
+     *
+     * @param owner the parent window
+     * @param repo the repository directory
+     */
+    public static void showAnalytics(Stage owner, File repo) {
+        ListView<String> rows = new ListView<>();
+        TextArea summary = new TextArea("Scoring history…");
+        summary.setEditable(false);
+        CheckBox skipMerges = new CheckBox("Skip merges");
+        skipMerges.setSelected(true);
+        Button runBtn = new Button("Run");
+        HBox toolbar = new HBox(10, skipMerges, runBtn);
+        toolbar.setStyle("-fx-padding: 10;");
+        BorderPane root = new BorderPane(new SplitPane(rows, summary));
+        root.setTop(toolbar);
+
         Stage dialog = new Stage();
         dialog.initOwner(owner);
-        dialog.initModality(Modality.WINDOW_MODAL);
-        dialog.setTitle("Commit History");
-        dialog.setScene(new Scene(listView, 600, 400));
+        dialog.setTitle("Quality Analytics");
+        dialog.setScene(new Scene(root, 900, 500));
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        dialog.setOnHidden(evt -> cancelled.set(true));
+        runBtn.setOnAction(evt -> {
+            runBtn.setDisable(true);
+            rows.getItems().clear();
+            summary.setText("Scoring history…");
+            boolean merges = skipMerges.isSelected();
+            RepositoryExecutor.execute(() -> analyzeInBackground(repo, merges, rows, summary, runBtn, cancelled));
+        });
         dialog.show();
+        runBtn.fire();
+    }
+
+    private static void analyzeInBackground(File repo, boolean skipMerges, ListView<String> rows, TextArea summary,
+                                            Button runBtn, AtomicBoolean cancelled) {
+        HistoryAnalyzer.Trends trends = new HistoryAnalyzer.Trends();
+        List<String> batch = new ArrayList<>();
+        long started = System.nanoTime();
+        String outcome;
+        try {
+            HistoryAnalyzer.analyze(repo, skipMerges, score -> {
+                trends.accept(score);
+                batch.add(score.id().abbreviate(7).name() + "  " + score.quality() + "%  score " + score.score()
+                        + "  (" + score.files() + " files, +" + score.insertions() + " -" + score.deletions() + ")  "
+                        + score.author());
+                if (batch.size() == ROW_BATCH) {
+                    List<String> chunk = new ArrayList<>(batch);
+                    batch.clear();
+                    Platform.runLater(() -> rows.getItems().addAll(chunk));
+                }
+            }, cancelled::get);
+            outcome = "Scored in " + (System.nanoTime() - started) / 1_000_000 + " ms";
+        } catch (Exception e) {
+            outcome = "Analysis stopped: " + e.getMessage();
+        }
+        List<String> rest = new ArrayList<>(batch);
+        String text = outcome + "\n\n" + formatTrends(trends);
+        Platform.runLater(() -> {
+            rows.getItems().addAll(rest);
+            summary.setText(text);
+            runBtn.setDisable(false);
+        });
+    }
+
+    private static String formatTrends(HistoryAnalyzer.Trends trends) {
+        StringBuilder sb = new StringBuilder("By author:\n");
+        trends.byAuthor().forEach((author, trend) -> sb.append(String.format("  %-40s %6d commits  avg %5.1f%%%n",
+                author, trend.commits(), trend.averageQuality())));
+        sb.append("\nBy week:\n");
+        trends.byWeek().forEach((week, trend) -> sb.append(String.format("  %s  %6d commits  avg %5.1f%%%n",
+                week, trend.commits(), trend.averageQuality())));
+        return sb.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.voidtoverse.ui;
+
+import com.voidtoverse.engine.MultiRepoScorer;
+import com.voidtoverse.engine.QualityDescriptor;
+import com.voidtoverse.engine.QualityEngine.Result;
+import com.voidtoverse.persistence.Persistence;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows a quality card for every repository the user works with.
+ *
+ * <p>The repositories are the subdirectories of the configured workspace (see
+ * {@link Persistence#loadWorkspaceRoot()}) or, when none is configured, the
+ * recent list. They are scored by a {@link MultiRepoScorer} with bounded
+ * concurrency; each card is added or updated as soon as its own score arrives
+ * and the whole set is refreshed periodically while the window is open. A
+ * repository that is missing or cannot be opened gets a card saying so rather
+ * than a score.</p>
+ */
+public final class ProjectDashboard {
+    /** Repositories scored at the same time. */
+    private static final int MAX_CONCURRENCY = 4;
+
+    /** Delay between two refreshes of all cards. */
+    private static final long REFRESH_MILLIS = 60_000;
+
+    private ProjectDashboard() {}
+
+    /**
+     * Open the dashboard window.
+     *
+     * @param owner the main window
+     */
+    public static void showDashboard(Stage owner) {
+        FlowPane cards = new FlowPane(10, 10);
+        cards.setStyle("-fx-padding: 10;");
+        // one card per repository path, touched only on the FX thread
+        Map<String, Label> cardLabels = new HashMap<>();
+
+        MultiRepoScorer scorer = new MultiRepoScorer(MAX_CONCURRENCY,
+                (repo, result) -> Platform.runLater(() -> showCard(cards, cardLabels, repo, result)),
+                (repo, error) -> Platform.runLater(() -> showError(cards, cardLabels, repo, error)));
+
+        Button workspaceBtn = new Button("Workspace…");
+        Button refreshBtn = new Button("Refresh");
+        Label sourceLabel = new Label(describeSource());
+        HBox toolbar = new HBox(10, workspaceBtn, refreshBtn, sourceLabel);
+        toolbar.setStyle("-fx-padding: 10;");
+
+        BorderPane root = new BorderPane(new ScrollPane(cards));
+        root.setTop(toolbar);
+
+        Stage dialog = new Stage();
+        dialog.initOwner(owner);
+        dialog.setTitle("Project Dashboard");
+        dialog.setScene(new Scene(root, 700, 450));
+
+        workspaceBtn.setOnAction(evt -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select Workspace Directory");
+            File dir = chooser.showDialog(dialog);
+            if (dir != null) {
+                Persistence.saveWorkspaceRoot(dir.getAbsolutePath());
+                sourceLabel.setText(describeSource());
+                cards.getChildren().clear();
+                cardLabels.clear();
+                scorer.scoreAll(repositories());
+            }
+        });
+        refreshBtn.setOnAction(evt -> scorer.scoreAll(repositories()));
+
+        // score now and keep the cards fresh until the window closes
+        scorer.scheduleRefresh(ProjectDashboard::repositories, REFRESH_MILLIS);
+        dialog.setOnHidden(evt -> scorer.close());
+        dialog.show();
+    }
+
+    /**
+     * Determine the repositories to show: the workspace's checkouts if a
+     * workspace is configured, otherwise the recently opened repositories.
+     *
+     * @return the repositories to score
+     */
+    private static List<File> repositories() {
+        String workspace = Persistence.loadWorkspaceRoot();
+        if (workspace != null) {
+            return MultiRepoScorer.discoverRepositories(new File(workspace));
+        }
+        List<File> repos = new ArrayList<>();
+        for (String path : Persistence.loadRecentRepositories()) {
+            repos.add(new File(path));
+        }
+        return repos;
+    }
+
+    private static String describeSource() {
+        String workspace = Persistence.loadWorkspaceRoot();
+        return workspace != null ? "Workspace: " + workspace : "Recent repositories";
+    }
+
+    /**
+     * Add the card for a repository, or update it if it is already shown.
+     */
+    private static void showCard(FlowPane cards, Map<String, Label> cardLabels, File repo, Result result) {
+        String[] desc = QualityDescriptor.describe(result.quality());
+        updateCard(cards, cardLabels, repo, desc[0] + " " + result.quality() + "% — " + desc[1], "");
+    }
+
+    /**
+     * Mark the card for a repository that could not be opened.
+     */
+    private static void showError(FlowPane cards, Map<String, Label> cardLabels, File repo, IOException error) {
+        updateCard(cards, cardLabels, repo, "\u26A0 Unavailable — " + error.getMessage(), "-fx-text-fill: #b00020;");
+    }
+
+    private static void updateCard(FlowPane cards, Map<String, Label> cardLabels, File repo, String text,
+                                   String style) {
+        Label label = cardLabels.get(repo.getAbsolutePath());
+        if (label != null) {
+            label.setText(text);
+            label.setStyle(style);
+            return;
+        }
+        label = new Label(text);
+        label.setStyle(style);
+        label.setWrapText(true);
+        Label name = new Label(repo.getName());
+        name.setStyle("-fx-font-weight: bold;");
+        VBox card = new VBox(5, name, label);
+        card.setPrefWidth(200);
+        card.setStyle("-fx-padding: 10; -fx-border-color: #cccccc; -fx-border-radius: 4;");
+        cardLabels.put(repo.getAbsolutePath(), label);
+        cards.getChildren().add(card);
+    }
+}
@@ -13,7 +13,7 @@ import java.util.List;
  *
  * <p>This initial implementation displays the native directory chooser to let
  * the user select a Git repository folder. Once a directory is selected, the
- * path is added to the recent list stored in {@code ~/.gitgui/recent_repos.json}
+ * path is added to the recent list stored in {@code ~/.gitgui/user-settings.json}
  * via {@link Persistence}. Duplicate entries are removed and the list is
  * limited to a maximum of five paths.</p>
  */
@@ -0,0 +1,180 @@
+package com.voidtoverse.ui;
+
+import com.voidtoverse.engine.FileBreakdown;
+import com.voidtoverse.engine.QualityEngine.Result;
+import com.voidtoverse.engine.ScoringService;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lists the staged files with their share of the score, worst first.
+ *
+ * <p>The files are scored by {@link ScoringService#breakdown} into a
+ * {@link FileBreakdown}. While the run is in progress the list is re-sorted
+ * from the rows reported so far a few times per second, so on a large index the
+ * files that hurt the score most are visible long before the diff finishes.
+ * The list view holds row numbers only; cells read path, change and counts
+ * straight from the breakdown. Double-clicking a file opens its diff in the
+ * {@link DiffViewer}.</p>
+ */
+public final class StagingPanel {
+    /** Minimum time between two re-sorts of a growing list. */
+    private static final long RESORT_INTERVAL_NANOS = 100_000_000L;
+
+    private StagingPanel() {}
+
+    /**
+     * Open the staged changes window and start scoring.
+     *
+     * @param owner the main window
+     * @param repo the repository whose staged changes are listed
+     */
+    public static void showStaging(Stage owner, File repo) {
+        ListView<Integer> listView = new ListView<>();
+        listView.setStyle("-fx-font-family: monospace;");
+        Label status = new Label();
+        Button refreshBtn = new Button("Refresh");
+        HBox toolbar = new HBox(10, refreshBtn, status);
+        toolbar.setStyle("-fx-padding: 10;");
+        BorderPane root = new BorderPane(listView);
+        root.setTop(toolbar);
+
+        Stage dialog = new Stage();
+        dialog.initOwner(owner);
+        dialog.setTitle("Staged Changes - " + repo.getName());
+        dialog.setScene(new Scene(root, 700, 400));
+
+        Run[] current = new Run[1];
+        Runnable start = () -> {
+            if (current[0] != null) {
+                current[0].cancel();
+            }
+            current[0] = new Run(repo, listView, status);
+        };
+        refreshBtn.setOnAction(evt -> start.run());
+        listView.setOnMouseClicked(evt -> {
+            Integer row = listView.getSelectionModel().getSelectedItem();
+            if (evt.getClickCount() == 2 && row != null) {
+                FileBreakdown breakdown = current[0].breakdown;
+                DiffViewer.showDiff(dialog, repo, breakdown.oldPath(row), breakdown.path(row));
+            }
+        });
+        dialog.setOnHidden(evt -> {
+            if (current[0] != null) {
+                current[0].cancel();
+            }
+        });
+        dialog.show();
+        start.run();
+    }
+
+    /** One scoring run and the timer that publishes its rows. */
+    private static final class Run extends AnimationTimer {
+        private final FileBreakdown breakdown = new FileBreakdown();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final ListView<Integer> listView;
+        private final Label status;
+        private int shown = -1;
+        private long lastSort;
+
+        Run(File repo, ListView<Integer> listView, Label status) {
+            this.listView = listView;
+            this.status = status;
+            listView.setCellFactory(view -> new FileCell(breakdown));
+            listView.getItems().clear();
+            status.setText("Scoring staged files…");
+            start();
+            ScoringService.breakdown(repo, breakdown, cancelled::get)
+                    .whenComplete((result, e) -> Platform.runLater(() -> finish(result, e)));
+        }
+
+        @Override
+        public void handle(long now) {
+            if (now - lastSort >= RESORT_INTERVAL_NANOS) {
+                lastSort = now;
+                publish();
+                status.setText("Scoring staged files… " + shown + " so far");
+            }
+        }
+
+        void cancel() {
+            cancelled.set(true);
+            stop();
+        }
+
+        private void finish(Result result, Throwable e) {
+            if (cancelled.get()) {
+                return;
+            }
+            stop();
+            publish();
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (cause != null) {
+                status.setText("Scoring failed: " + cause.getMessage());
+                return;
+            }
+            String text = String.format(Locale.ROOT, "%d files, score %d, quality %d%%", shown, result.score(),
+                    result.quality());
+            int unpaired = breakdown.unpaired();
+            if (unpaired > 0) {
+                // rename detection gave up: moved files among these may be counted twice
+                text += String.format(Locale.ROOT, " (renames not checked for %d added or deleted files)", unpaired);
+            }
+            status.setText(text);
+        }
+
+        private void publish() {
+            int size = breakdown.size();
+            if (size == shown) {
+                return;
+            }
+            shown = size;
+            int[] rows = breakdown.rowsByContribution();
+            List<Integer> items = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                items.add(row);
+            }
+            listView.getItems().setAll(items);
+        }
+    }
+
+    /** Renders one file: contribution, change type, line counts and path. */
+    private static final class FileCell extends ListCell<Integer> {
+        private final FileBreakdown breakdown;
+
+        FileCell(FileBreakdown breakdown) {
+            this.breakdown = breakdown;
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                setText(null);
+                return;
+            }
+            setText(String.format(Locale.ROOT, "%9.1f  %-6s %+7d %7s  %s",
+                    breakdown.contributionMillis(row) / 1000.0, breakdown.changeType(row),
+                    breakdown.insertions(row), "-" + breakdown.deletions(row), breakdown.path(row)));
+        }
+    }
+}
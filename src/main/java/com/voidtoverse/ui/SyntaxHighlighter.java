@@ -0,0 +1,132 @@
+package com.voidtoverse.ui;
+
+import javafx.scene.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Colours keywords, strings, numbers and comments of a single line.
+ *
+ * <p>Lines are highlighted independently, without state carried over from the
+ * lines above, so the diff viewer can highlight exactly the rows that scroll
+ * into view and nothing else. The price is that a block comment or text block
+ * spanning several lines is only recognised on its first line.</p>
+ */
+final class SyntaxHighlighter {
+    private static final String KEYWORD_STYLE = "-fx-fill: #0033b3; -fx-font-weight: bold;";
+    private static final String STRING_STYLE = "-fx-fill: #067d17;";
+    private static final String NUMBER_STYLE = "-fx-fill: #1750eb;";
+    private static final String COMMENT_STYLE = "-fx-fill: #8c8c8c;";
+
+    private static final Set<String> C_FAMILY = Set.of("abstract", "boolean", "break", "byte", "case", "catch",
+            "char", "class", "const", "continue", "default", "do", "double", "else", "enum", "export", "extends",
+            "false", "final", "finally", "float", "for", "function", "if", "implements", "import", "instanceof", "int",
+            "interface", "let", "long", "new", "null", "package", "private", "protected", "public", "record", "return",
+            "short", "static", "struct", "super", "switch", "this", "throw", "throws", "true", "try", "var", "void",
+            "while", "yield");
+    private static final Set<String> PYTHON = Set.of("and", "as", "class", "def", "elif", "else", "except", "False",
+            "finally", "for", "from", "if", "import", "in", "is", "lambda", "None", "not", "or", "pass", "raise",
+            "return", "True", "try", "while", "with", "yield");
+    private static final Set<String> SQL = Set.of("alter", "and", "as", "by", "create", "delete", "drop", "from",
+            "group", "index", "insert", "into", "join", "key", "left", "not", "null", "on", "or", "order", "primary",
+            "select", "set", "table", "update", "values", "where");
+    private static final Set<String> JSON = Set.of("true", "false", "null");
+
+    /** Used for unknown file types: strings and numbers only. */
+    private static final SyntaxHighlighter PLAIN = new SyntaxHighlighter(Set.of(), null, false);
+
+    private final Set<String> keywords;
+    private final String lineComment;
+    private final boolean ignoreCase;
+
+    private SyntaxHighlighter(Set<String> keywords, String lineComment, boolean ignoreCase) {
+        this.keywords = keywords;
+        this.lineComment = lineComment;
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Pick the rules for a file by its extension.
+     *
+     * @param path the file path
+     * @return the highlighter to use
+     */
+    static SyntaxHighlighter forPath(String path) {
+        String name = path.toLowerCase(Locale.ROOT);
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return switch (extension) {
+            case "java", "kt", "js", "ts", "c", "h", "cpp", "cs", "go", "gradle", "groovy", "scala", "swift" ->
+                    new SyntaxHighlighter(C_FAMILY, "//", false);
+            case "py" -> new SyntaxHighlighter(PYTHON, "#", false);
+            case "sh", "yml", "yaml", "toml", "properties" -> new SyntaxHighlighter(Set.of(), "#", false);
+            case "sql" -> new SyntaxHighlighter(SQL, "--", true);
+            case "json" -> new SyntaxHighlighter(JSON, null, false);
+            default -> PLAIN;
+        };
+    }
+
+    /**
+     * Split a line into styled text nodes.
+     *
+     * @param line the line text
+     * @return the nodes, in order
+     */
+    List<Text> highlight(String line) {
+        List<Text> nodes = new ArrayList<>();
+        int plainStart = 0;
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            int end;
+            String style;
+            if (lineComment != null && line.startsWith(lineComment, i)) {
+                end = length;
+                style = COMMENT_STYLE;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                end = i + 1;
+                while (end < length && line.charAt(end) != c) {
+                    end += line.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+                style = STRING_STYLE;
+            } else if (Character.isDigit(c) && (i == 0 || !Character.isJavaIdentifierPart(line.charAt(i - 1)))) {
+                end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(line.charAt(end)) || line.charAt(end) == '.'
+                        || line.charAt(end) == '_')) {
+                    end++;
+                }
+                style = NUMBER_STYLE;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(line.charAt(end))) {
+                    end++;
+                }
+                String word = line.substring(i, end);
+                style = keywords.contains(ignoreCase ? word.toLowerCase(Locale.ROOT) : word) ? KEYWORD_STYLE : null;
+            } else {
+                i++;
+                continue;
+            }
+            if (style == null) {
+                i = end;
+                continue;
+            }
+            if (plainStart < i) {
+                nodes.add(new Text(line.substring(plainStart, i)));
+            }
+            Text token = new Text(line.substring(i, end));
+            token.setStyle(style);
+            nodes.add(token);
+            i = end;
+            plainStart = end;
+        }
+        if (plainStart < length) {
+            nodes.add(new Text(line.substring(plainStart)));
+        }
+        return nodes;
+    }
+}
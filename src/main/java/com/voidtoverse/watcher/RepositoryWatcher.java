@@ -0,0 +1,239 @@
+package com.voidtoverse.watcher;
+
+import org.eclipse.jgit.ignore.IgnoreNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watches a repository's working tree recursively and reports changes in batches.
+ *
+ * <p>Every non-ignored directory of the working tree is registered with a
+ * {@link WatchService}; directories created later are registered as soon as
+ * their creation event arrives. Paths matched by the repository's
+ * {@code .gitignore} files (and {@code .git/info/exclude}) are skipped using
+ * JGit's {@link IgnoreNode}. Inside {@code .git} only the {@code index} and
+ * {@code HEAD} files are of interest, so staging from another tool or switching
+ * branches is noticed too.</p>
+ *
+ * <p>Relevant events are debounced: the first event opens a window of
+ * {@code debounceMillis} and the callback runs once when it closes, no matter
+ * how many events arrived in between. A save storm from an IDE or a checkout of
+ * thousands of files therefore costs a single rescore.</p>
+ */
+public final class RepositoryWatcher implements AutoCloseable {
+    /** Debounce window used by the UI unless configured otherwise. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    private final Path root;
+    private final Path gitDir;
+    private final long debounceMillis;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    // parsed ignore rules per watched directory; directories without a .gitignore map to an empty node
+    private final Map<Path, IgnoreNode> ignoreNodes = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledExecutorService debouncer;
+    private final Thread pollThread;
+
+    /**
+     * Start watching a repository.
+     *
+     * @param repo the working tree root of the repository
+     * @param debounceMillis length of the batching window in milliseconds
+     * @param onChange invoked on a background thread at most once per window
+     * @throws IOException if the watch service cannot be created or the tree cannot be walked
+     */
+    public RepositoryWatcher(File repo, long debounceMillis, Runnable onChange) throws IOException {
+        this.root = repo.toPath().toAbsolutePath().normalize();
+        this.gitDir = root.resolve(".git");
+        this.debounceMillis = debounceMillis;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debouncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "repository-watcher-debounce");
+            t.setDaemon(true);
+            return t;
+        });
+        registerTree(root);
+        if (Files.isDirectory(gitDir)) {
+            // only the top of .git: index and HEAD live there
+            register(gitDir);
+        }
+        pollThread = new Thread(this::poll, "repository-watcher");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    /**
+     * Stop watching and release the watch service.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // ignore close failures
+        }
+        debouncer.shutdownNow();
+    }
+
+    private void poll() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = keys.get(key);
+            boolean relevant = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events were lost; the only safe answer is to rescore
+                    relevant = true;
+                    continue;
+                }
+                if (dir == null) {
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                String name = child.getFileName().toString();
+                if (dir.equals(gitDir)) {
+                    relevant |= name.equals("index") || name.equals("HEAD");
+                    continue;
+                }
+                if (name.equals(".gitignore")) {
+                    // rules for this directory changed; pick them up for later events
+                    loadIgnoreRules(dir);
+                }
+                boolean isDirectory = Files.isDirectory(child);
+                if (isIgnored(child, isDirectory)) {
+                    continue;
+                }
+                relevant = true;
+                if (isDirectory && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    try {
+                        registerTree(child);
+                    } catch (IOException e) {
+                        // directory vanished again or is unreadable; nothing to watch
+                    }
+                }
+            }
+            if (!key.reset()) {
+                // the directory was deleted; forget its key and rules
+                keys.remove(key);
+                if (dir != null) {
+                    ignoreNodes.remove(dir);
+                }
+            }
+            if (relevant) {
+                schedule();
+            }
+        }
+    }
+
+    /** Open a debounce window unless one is already open. */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            debouncer.schedule(() -> {
+                scheduled.set(false);
+                onChange.run();
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Register {@code start} and every non-ignored directory below it. */
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.equals(gitDir) || (!dir.equals(root) && isIgnored(dir, true))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                loadIgnoreRules(dir);
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        keys.put(key, dir);
+    }
+
+    /**
+     * Evaluate the ignore rules from the closest directory up to the root, the
+     * same precedence Git applies.
+     */
+    private boolean isIgnored(Path path, boolean isDirectory) {
+        if (path.getFileName() != null && path.getFileName().toString().equals(".gitignore")) {
+            return false;
+        }
+        for (Path dir = path.getParent(); dir != null && dir.startsWith(root); dir = dir.getParent()) {
+            IgnoreNode node = ignoreNodes.get(dir);
+            if (node == null) {
+                continue;
+            }
+            String relative = dir.relativize(path).toString().replace(File.separatorChar, '/');
+            IgnoreNode.MatchResult match = node.isIgnored(relative, isDirectory);
+            if (match == IgnoreNode.MatchResult.IGNORED) {
+                return true;
+            }
+            if (match == IgnoreNode.MatchResult.NOT_IGNORED) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * (Re)load the ignore rules that apply to a directory. The root also picks up
+     * {@code .git/info/exclude}, parsed first so that {@code .gitignore} rules win.
+     */
+    private void loadIgnoreRules(Path dir) {
+        IgnoreNode node = new IgnoreNode();
+        if (dir.equals(root)) {
+            parseInto(node, gitDir.resolve("info").resolve("exclude"));
+        }
+        parseInto(node, dir.resolve(".gitignore"));
+        ignoreNodes.put(dir, node);
+    }
+
+    /** Missing or unreadable ignore files simply contribute no rules. */
+    private static void parseInto(IgnoreNode node, Path file) {
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                node.parse(in);
+            } catch (IOException e) {
+                // treat unreadable ignore files as empty
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.voidtoverse;
+
+import com.voidtoverse.engine.BranchScorer;
+import com.voidtoverse.engine.BranchScorer.RangeScore;
+import com.voidtoverse.engine.HistoryAnalyzer.CommitScore;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Simple sanity tests for {@link BranchScorer}: the merge base, the commits in
+ * the range and the cumulative score of a small feature branch.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class BranchScorerTest {
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int total = 5;
+        Path repo = Files.createTempDirectory("gitgui-branch");
+        try (Git git = Git.init().setDirectory(repo.toFile()).setInitialBranch("main").call()) {
+            write(repo, "lib/a.txt", "a\n".repeat(10));
+            write(repo, "docs/readme.txt", "readme\n");
+            commit(git, "initial commit");
+
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            write(repo, "lib/a.txt", "a\n".repeat(12));
+            commit(git, "grow a");
+            write(repo, "lib/b.txt", "b\n");
+            commit(git, "add b");
+
+            git.checkout().setName("main").call();
+            write(repo, "docs/readme.txt", "readme\nmore\n");
+            RevCommit docs = commit(git, "docs");
+            git.checkout().setName("feature").call();
+            git.merge().include(git.getRepository().resolve("main")).setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                    .setMessage("merge main").call();
+            write(repo, "lib/b.txt", "b\nc\n");
+            commit(git, "extend b");
+
+            RangeScore range = BranchScorer.score(repo.toFile(), "main", "HEAD", true, () -> false);
+            // merging main into the branch moves the merge base to main's tip
+            passed += check("merge base follows the merge", docs.equals(range.mergeBase()));
+            passed += check("merges are skipped and commits are oldest first", range.commits().size() == 3
+                    && range.commits().get(0).insertions() == 2 && range.commits().get(2).insertions() == 1
+                    && range.messages().equals(List.of("grow a", "add b", "extend b")));
+            CommitScore cumulative = range.cumulative();
+            // lib/a.txt +2, lib/b.txt +2 and two files; the docs change came from main
+            passed += check("cumulative score covers the branch only", cumulative.files() == 2
+                    && cumulative.insertions() == 4 && cumulative.deletions() == 0 && cumulative.score() == 14);
+
+            RangeScore withMerges = BranchScorer.score(repo.toFile(), null, "HEAD", false, () -> false);
+            passed += check("default base and merge commits", withMerges.commits().size() == 4
+                    && withMerges.cumulative().score() == cumulative.score());
+
+            boolean rejected = false;
+            try {
+                BranchScorer.score(repo.toFile(), "no-such-branch", "HEAD", true, () -> false);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            passed += check("unknown base is rejected", rejected);
+        }
+        System.out.println("BranchScorer tests: " + passed + "/" + total + " passed");
+    }
+
+    private static void write(Path repo, String path, String content) throws Exception {
+        Path file = repo.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static RevCommit commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).setAuthor("t", "t@example.com")
+                .setCommitter("t", "t@example.com").call();
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,82 @@
+package com.voidtoverse;
+
+import com.voidtoverse.engine.CommitPipeline;
+import com.voidtoverse.engine.CommitPipeline.Outcome;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Simple sanity tests for {@link CommitPipeline}: committing a merge whose
+ * conflicts were resolved in the working tree.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class CommitPipelineTest {
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int total = 3;
+        Path repo = Files.createTempDirectory("gitgui-commit");
+        try (Git git = Git.init().setDirectory(repo.toFile()).setInitialBranch("main").call()) {
+            write(repo, "edited.txt", "base\n");
+            write(repo, "dropped.txt", "base\n");
+            commit(git, "initial commit");
+
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            write(repo, "edited.txt", "feature\n");
+            write(repo, "dropped.txt", "feature\n");
+            commit(git, "feature");
+
+            git.checkout().setName("main").call();
+            write(repo, "edited.txt", "main\n");
+            git.rm().addFilepattern("dropped.txt").call();
+            commit(git, "main");
+
+            MergeResult merge = git.merge().include(git.getRepository().resolve("feature")).call();
+            boolean conflicted = merge.getMergeStatus() == MergeResult.MergeStatus.CONFLICTING
+                    && git.status().call().getConflicting().size() == 2;
+            // resolve: keep a merged edit, and agree to the deletion
+            write(repo, "edited.txt", "main\nfeature\n");
+            Files.deleteIfExists(repo.resolve("dropped.txt"));
+
+            Outcome outcome = CommitPipeline.commitAll(repo.toFile(), "merge feature", (step, fraction) -> { })
+                    .get();
+            Repository repository = git.getRepository();
+            RevCommit head = repository.parseCommit(repository.resolve("HEAD"));
+            passed += check("resolved merge is committed", conflicted && outcome.staged() == 1
+                    && outcome.removed() == 1 && head.getParentCount() == 2);
+            try (TreeWalk edited = TreeWalk.forPath(repository, "edited.txt", head.getTree());
+                 TreeWalk dropped = TreeWalk.forPath(repository, "dropped.txt", head.getTree())) {
+                passed += check("resolutions are in the commit", edited != null && dropped == null
+                        && "main\nfeature\n".equals(new String(repository.open(edited.getObjectId(0)).getBytes(),
+                        StandardCharsets.UTF_8)));
+            }
+            passed += check("no conflicts remain", git.status().call().isClean());
+        }
+        System.out.println("CommitPipeline tests: " + passed + "/" + total + " passed");
+    }
+
+    private static void write(Path repo, String path, String content) throws Exception {
+        Files.writeString(repo.resolve(path), content, StandardCharsets.UTF_8);
+    }
+
+    private static void commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage(message).setAuthor("t", "t@example.com")
+                .setCommitter("t", "t@example.com").call();
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.voidtoverse;
+
+import com.voidtoverse.diagnostics.Metrics;
+import com.voidtoverse.engine.FileBreakdown;
+import com.voidtoverse.engine.QualityEngine;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Simple sanity tests for {@link FileBreakdown} and the per-file results
+ * reported by {@link QualityEngine}.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class FileBreakdownTest {
+    public static void main(String[] args) throws Exception {
+        FileBreakdown breakdown = new FileBreakdown();
+        breakdown.add("a.txt", ChangeType.MODIFY, 1, 1, 7_000);
+        breakdown.add("b.txt", ChangeType.ADD, 40, 0, 45_000);
+        breakdown.add("c.txt", ChangeType.DELETE, 0, 2, 7_000);
+        for (int i = 0; i < 200; i++) {
+            breakdown.add("gen/" + i, ChangeType.ADD, i, 0, 5_000L + i * 1_000L);
+        }
+
+        int passed = 0;
+        int total = 6;
+        int[] rows = breakdown.rowsByContribution();
+        passed += check("largest contribution first", rows.length == 203 && rows[0] == 202 && rows[1] == 201);
+        int a = indexOf(rows, 0);
+        passed += check("ties keep reporting order", a >= 0 && rows[a + 1] == 2);
+        passed += check("rows survive growth", breakdown.size() == 203 && "gen/199".equals(breakdown.path(202))
+                && breakdown.changeType(2) == ChangeType.DELETE && breakdown.deletions(2) == 2);
+
+        Path repo = Files.createTempDirectory("gitgui-breakdown");
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            Files.writeString(repo.resolve("README"), "readme\n", StandardCharsets.UTF_8);
+            git.add().addFilepattern("README").call();
+            git.commit().setMessage("initial commit").setAuthor("t", "t@example.com")
+                    .setCommitter("t", "t@example.com").call();
+            Files.writeString(repo.resolve("small.txt"), "one\n", StandardCharsets.UTF_8);
+            Files.writeString(repo.resolve("big.txt"), "x\n".repeat(30), StandardCharsets.UTF_8);
+            git.add().addFilepattern(".").call();
+            FileBreakdown staged = new FileBreakdown();
+            QualityEngine.Result result = QualityEngine.calculateQuality(repo.toFile(), () -> false, staged);
+            int[] order = staged.rowsByContribution();
+            passed += check("engine reports every staged file",
+                    staged.size() == 2 && "big.txt".equals(staged.path(order[0]))
+                            && staged.insertions(order[0]) == 30
+                            && staged.totalMillis() == result.score() * 1000L);
+
+            git.commit().setMessage("add files").setAuthor("t", "t@example.com")
+                    .setCommitter("t", "t@example.com").call();
+            Files.move(repo.resolve("big.txt"), repo.resolve("moved.txt"));
+            git.add().addFilepattern("moved.txt").call();
+            git.rm().addFilepattern("big.txt").call();
+            FileBreakdown moved = new FileBreakdown();
+            QualityEngine.calculateQuality(repo.toFile(), () -> false, moved);
+            passed += check("moved file scores as a rename",
+                    moved.size() == 1 && moved.changeType(0) == ChangeType.RENAME
+                            && "moved.txt".equals(moved.path(0))
+                            && moved.insertions(0) == 0 && moved.deletions(0) == 0 && moved.unpaired() == 0);
+
+            // above the threshold the formatter calls the file binary; it must still count its lines
+            git.commit().setMessage("move").setAuthor("t", "t@example.com")
+                    .setCommitter("t", "t@example.com").call();
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 500; i++) {
+                large.append("line ").append(i).append('\n');
+            }
+            Files.writeString(repo.resolve("large.txt"), large, StandardCharsets.UTF_8);
+            git.add().addFilepattern("large.txt").call();
+            git.commit().setMessage("large").setAuthor("t", "t@example.com")
+                    .setCommitter("t", "t@example.com").call();
+            Files.writeString(repo.resolve("large.txt"), large.toString().replace("line 7\n", "line seven\n")
+                    + "tail\n", StandardCharsets.UTF_8);
+            git.add().addFilepattern("large.txt").call();
+            long fallbacks = Metrics.LARGE_OBJECT_FALLBACKS.get();
+            QualityEngine.setLargeFileThreshold(1024);
+            FileBreakdown streamed = new FileBreakdown();
+            try {
+                QualityEngine.calculateQuality(repo.toFile(), () -> false, streamed);
+            } finally {
+                QualityEngine.setLargeFileThreshold(50 * 1024 * 1024);
+            }
+            passed += check("large text file counts its lines",
+                    streamed.size() == 1 && streamed.insertions(0) == 2 && streamed.deletions(0) == 1
+                            && Metrics.LARGE_OBJECT_FALLBACKS.get() > fallbacks);
+        }
+        System.out.println("FileBreakdown tests: " + passed + "/" + total + " passed");
+    }
+
+    private static int indexOf(int[] rows, int row) {
+        return Arrays.stream(rows).boxed().toList().indexOf(row);
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,40 @@
+package com.voidtoverse;
+
+import com.voidtoverse.diagnostics.LatencyHistogram;
+import com.voidtoverse.diagnostics.Metrics;
+
+/**
+ * Simple sanity tests for the {@link LatencyHistogram} used by {@link Metrics}.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class LatencyHistogramTest {
+    public static void main(String[] args) {
+        LatencyHistogram histogram = Metrics.FILE_EDITS;
+        histogram.reset();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        int passed = 0;
+        int total = 4;
+        passed += check("count and max", histogram.count() == 1000 && histogram.maxMicros() == 1_000_000);
+        // log-linear buckets keep percentiles within about 6% of the true value
+        passed += check("p50 within bucket precision", within(histogram.percentileMicros(50), 500_000));
+        passed += check("p99 within bucket precision", within(histogram.percentileMicros(99), 990_000));
+        histogram.reset();
+        passed += check("reset clears everything", histogram.count() == 0 && histogram.percentileMicros(99) == 0);
+        System.out.println("LatencyHistogram tests: " + passed + "/" + total + " passed");
+    }
+
+    private static boolean within(long actual, long expected) {
+        return Math.abs(actual - expected) <= expected * 0.07;
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
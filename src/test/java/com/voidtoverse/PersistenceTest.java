@@ -0,0 +1,65 @@
+package com.voidtoverse;
+
+import com.voidtoverse.persistence.Json;
+import com.voidtoverse.persistence.Persistence;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simple sanity tests for the settings kept by {@link Persistence}.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout. It points
+ * {@code user.home} at a temporary directory holding settings in the old one-file-per-setting
+ * layout, so both the migration and the unified file can be checked without touching real
+ * settings.
+ */
+public final class PersistenceTest {
+    public static void main(String[] args) throws IOException {
+        Path home = Files.createTempDirectory("gitgui-home");
+        System.setProperty("user.home", home.toString());
+        Path dir = Files.createDirectories(home.resolve(".gitgui"));
+        Files.writeString(dir.resolve("recent_repos.json"), "[\"/work/a\",\"/work/b\"]", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("user-settings.json"), "/work/a", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("window-layout.json"), "10.0,20.0,500.0,300.0", StandardCharsets.UTF_8);
+        Path settings = dir.resolve("user-settings.json");
+
+        int passed = 0;
+        int total = 6;
+        passed += check("legacy files are migrated",
+                Persistence.loadRecentRepositories().equals(List.of("/work/a", "/work/b"))
+                        && "/work/a".equals(Persistence.loadLastRepository())
+                        && Persistence.loadWindowLayout()[2] == 500.0);
+
+        for (int i = 0; i < 200; i++) {
+            Persistence.saveWindowLayout(i, i, 800, 600);
+        }
+        passed += check("saves are not written synchronously",
+                Files.readString(settings, StandardCharsets.UTF_8).equals("/work/a"));
+
+        Persistence.savePreference("theme", "dark");
+        Persistence.flush();
+        Object written = Json.parse(Files.readString(settings, StandardCharsets.UTF_8));
+        passed += check("flush writes the unified document", written instanceof Map<?, ?> map
+                && map.get("windowLayout").equals(List.of(199.0, 199.0, 800.0, 600.0))
+                && map.get("lastRepository").equals("/work/a"));
+        passed += check("no temporary file is left behind",
+                !Files.exists(dir.resolve("user-settings.json.tmp")));
+        passed += check("legacy files are deleted after the first write",
+                !Files.exists(dir.resolve("recent_repos.json")) && !Files.exists(dir.resolve("window-layout.json")));
+        passed += check("preferences round-trip", "dark".equals(Persistence.loadPreference("theme")));
+        System.out.println("Persistence tests: " + passed + "/" + total + " passed");
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
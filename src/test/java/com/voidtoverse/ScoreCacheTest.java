@@ -0,0 +1,54 @@
+package com.voidtoverse;
+
+import com.voidtoverse.persistence.ScoreCache;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Simple sanity tests for the {@link ScoreCache} binary store.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout. It points
+ * {@code user.home} at a temporary directory so the real cache is never touched.
+ */
+public final class ScoreCacheTest {
+    public static void main(String[] args) throws IOException {
+        Path home = Files.createTempDirectory("gitgui-home");
+        System.setProperty("user.home", home.toString());
+        Path file = home.resolve(".gitgui").resolve("score-cache.bin");
+
+        ObjectId a = ObjectId.fromString("0123456789abcdef0123456789abcdef01234567");
+        ObjectId b = ObjectId.fromString("89abcdef0123456789abcdef0123456789abcdef");
+        int passed = 0;
+        int total = 5;
+
+        ScoreCache.store(1, a, new ScoreCache.Entry(2, 10, 3, 23));
+        ScoreCache.store(1, b, new ScoreCache.Entry(1, 0, 0, 5));
+        ScoreCache.flush();
+        passed += check("lookup returns stored entry",
+                new ScoreCache.Entry(2, 10, 3, 23).equals(ScoreCache.lookup(1, a)));
+        // 12-byte header plus two 36-byte records
+        passed += check("records appended to disk", Files.size(file) == 12 + 2 * 36);
+        passed += check("unknown commit misses",
+                ScoreCache.lookup(1, ObjectId.zeroId()) == null);
+        // a record cut short by a crash is dropped before the next append
+        Files.write(file, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        ScoreCache.store(1, ObjectId.fromString("fedcba9876543210fedcba9876543210fedcba98"),
+                new ScoreCache.Entry(1, 1, 0, 6));
+        ScoreCache.flush();
+        passed += check("appends stay aligned after a torn record", Files.size(file) == 12 + 3 * 36);
+        passed += check("formula change invalidates cache", ScoreCache.lookup(2, a) == null);
+        System.out.println("ScoreCache tests: " + passed + "/" + total + " passed");
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.voidtoverse;
+
+import com.voidtoverse.cli.ScoringDaemon;
+import com.voidtoverse.persistence.Json;
+import org.eclipse.jgit.api.Git;
+
+import java.io.BufferedReader;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Simple sanity tests for {@link ScoringDaemon}: requests and answers over a
+ * Unix domain socket, including concurrent clients.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class ScoringDaemonTest {
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int total = 7;
+        Path repo = Files.createTempDirectory("gitgui-daemon");
+        Path plain = Files.createTempDirectory("gitgui-plain");
+        Path socket = Files.createTempDirectory("gitgui-socket").resolve("private").resolve("daemon.sock");
+        try (Git git = Git.init().setDirectory(repo.toFile()).call();
+             ScoringDaemon daemon = new ScoringDaemon(socket)) {
+            Files.writeString(repo.resolve("README"), "readme\n", StandardCharsets.UTF_8);
+            git.add().addFilepattern("README").call();
+            git.commit().setMessage("initial commit").setAuthor("t", "t@example.com")
+                    .setCommitter("t", "t@example.com").call();
+            Files.writeString(repo.resolve("a.txt"), "one\ntwo\n", StandardCharsets.UTF_8);
+            git.add().addFilepattern("a.txt").call();
+            Thread server = new Thread(daemon::serve, "daemon-test");
+            server.setDaemon(true);
+            server.start();
+
+            String repoPath = Json.write(repo.toString());
+            List<String> answers = ask(socket, "{\"op\":\"ping\"}",
+                    "{\"op\":\"score\",\"repo\":" + repoPath + "}",
+                    "{\"op\":\"score\",\"repo\":" + repoPath + ",\"message\":\"refactor: tidy\"}",
+                    "{\"op\":\"nonsense\",\"repo\":" + repoPath + "}",
+                    "{\"op\":\"breakdown\",\"repo\":" + repoPath + "}",
+                    "{\"op\":\"history\",\"repo\":" + repoPath + ",\"limit\":1}",
+                    "{\"op\":\"score\",\"repo\":" + Json.write(plain.toString()) + "}");
+            passed += check("socket directory is private", PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(socket.getParent())).equals("rwx------"));
+            passed += check("ping", Boolean.TRUE.equals(field(answers.get(0), "ok")));
+            // one file with two lines: 5 + 2
+            passed += check("score and exemption", Double.valueOf(7).equals(field(answers.get(1), "score"))
+                    && Double.valueOf(100).equals(field(answers.get(2), "quality")));
+            passed += check("errors keep the connection open", field(answers.get(3), "error") != null
+                    && ((List<?>) field(answers.get(4), "files")).size() == 1);
+            passed += check("history honours the limit", ((List<?>) field(answers.get(5), "commits")).size() == 1);
+            passed += check("non-repositories are rejected", field(answers.get(6), "error") != null
+                    && field(answers.get(6), "quality") == null);
+
+            List<CompletableFuture<List<String>>> clients = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                clients.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return ask(socket, "{\"op\":\"score\",\"repo\":" + repoPath + "}");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            boolean same = true;
+            for (CompletableFuture<List<String>> client : clients) {
+                same &= client.join().get(0).equals(answers.get(1));
+            }
+            passed += check("concurrent clients", same);
+        }
+        System.out.println("ScoringDaemon tests: " + passed + "/" + total + " passed");
+    }
+
+    private static List<String> ask(Path socket, String... requests) throws Exception {
+        List<String> answers = new ArrayList<>();
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+             BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            for (String request : requests) {
+                out.write(request + "\n");
+                out.flush();
+                answers.add(in.readLine());
+            }
+        }
+        return answers;
+    }
+
+    private static Object field(String json, String name) {
+        return ((Map<?, ?>) Json.parse(json)).get(name);
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,73 @@
+package com.voidtoverse;
+
+import com.voidtoverse.engine.ScoringRules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Simple sanity tests for {@link ScoringRules} loaded from a project's {@code .gitgui_config.json}.
+ *
+ * <p>This test harness does not rely on JUnit and instead prints results to stdout.
+ */
+public final class ScoringRulesTest {
+    public static void main(String[] args) throws IOException {
+        Path repo = Files.createTempDirectory("gitgui-rules");
+        Files.writeString(repo.resolve(ScoringRules.CONFIG_FILE), """
+                {
+                  "scoring": {
+                    "maxLinesPerFile": 100,
+                    "weights": [
+                      { "glob": "*.lock", "weight": 0 },
+                      { "glob": "src/generated/**", "weight": 0 },
+                      { "glob": "src/test/**/*Test.java", "weight": 0.5 }
+                    ],
+                    "exemptKeywords": ["chore(deps)"],
+                    "renameLimit": 50
+                  }
+                }
+                """, StandardCharsets.UTF_8);
+        ScoringRules rules = ScoringRules.forRepository(repo.toFile());
+        ScoringRules defaults = ScoringRules.forRepository(Files.createTempDirectory("gitgui-rules").toFile());
+
+        int passed = 0;
+        int total = 8;
+        passed += check("defaults follow the specification",
+                ScoringRules.toScore(defaults.fileScoreMillis("a/B.java", 10, 3)) == 18);
+        passed += check("name-only glob matches at any depth", rules.fileScoreMillis("web/yarn.lock", 500, 0) == 0);
+        passed += check("double star spans directories", rules.fileScoreMillis("src/generated/a/b/X.java", 9, 9) == 0);
+        passed += check("test weight halves the score",
+                ScoringRules.toScore(rules.fileScoreMillis("src/test/java/FooTest.java", 15, 0)) == 10);
+        passed += check("per-file cap applies to unmatched files",
+                ScoringRules.toScore(rules.fileScoreMillis("src/main/Big.java", 1000, 1000)) == 105);
+        passed += check("configured and default exemptions",
+                rules.isExempt("Chore(deps): bump jgit") && !rules.isExempt("bulk rename")
+                        && defaults.isExempt("refactor: tidy"));
+        passed += check("rename detection defaults and limit",
+                defaults.detectRenames() && defaults.renameLimit() == 400 && defaults.renameBudgetMillis() == 500
+                        && rules.detectRenames() && rules.renameLimit() == 50 && rules.renameBudgetMillis() == 500);
+        Path preferences = Files.createTempDirectory("gitgui-rules");
+        Files.writeString(preferences.resolve(ScoringRules.CONFIG_FILE),
+                "{\"scoringPreferences\": {\"lineWeight\": 2, \"fileWeight\": 3}}", StandardCharsets.UTF_8);
+        Path overridden = Files.createTempDirectory("gitgui-rules");
+        Files.writeString(overridden.resolve(ScoringRules.CONFIG_FILE),
+                "{\"scoringPreferences\": {\"lineWeight\": 0.5, \"fileWeight\": 3},"
+                        + " \"scoring\": {\"filePenalty\": 1}}", StandardCharsets.UTF_8);
+        ScoringRules weighted = ScoringRules.forRepository(preferences.toFile());
+        ScoringRules penalty = ScoringRules.forRepository(overridden.toFile());
+        passed += check("scoringPreferences weights lines and files",
+                ScoringRules.toScore(weighted.fileScoreMillis("a.txt", 10, 0)) == 23
+                        && ScoringRules.toScore(penalty.fileScoreMillis("a.txt", 10, 0)) == 6);
+        System.out.println("ScoringRules tests: " + passed + "/" + total + " passed");
+    }
+
+    private static int check(String name, boolean condition) {
+        if (!condition) {
+            System.out.println("Failed: " + name);
+            return 0;
+        }
+        return 1;
+    }
+}